@@ -0,0 +1,205 @@
+package com.davoice.keywordspotting;
+
+import android.os.Process;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import ai.picovoice.android.voiceprocessor.VoiceProcessor;
+import ai.picovoice.android.voiceprocessor.VoiceProcessorErrorListener;
+import ai.picovoice.android.voiceprocessor.VoiceProcessorException;
+import ai.picovoice.android.voiceprocessor.VoiceProcessorFrameListener;
+
+/**
+ * AudioCaptureHub
+ *
+ * Process-wide microphone capture shared by every listening detector. One VoiceProcessor
+ * recorder publishes 16 kHz PCM16 frames into a {@link BroadcastFrameRing}; each subscriber
+ * reads them with its own cursor on its own thread. The recorder runs while at least one
+ * subscriber exists.
+ *
+ * Subscribers are engines, not instances: instances sharing a detector share one subscription,
+ * so capture, buffering and inference do not grow with the number of instances. The hub is also
+ * the front end shared with speaker ID (see {@link SharedAudioFrontEnd}): per-hop energy is
+ * computed once on publish, and the ring keeps the last ~2.5 s for verifying a detection
+ * without recording again.
+ *
+ * Thread-safety: subscribe/unsubscribe are guarded by this object's monitor. The recorder
+ * thread publishes without locks. Callers may hold an engine monitor when calling in, but
+ * subscriber callbacks must never be waited for while holding one (unsubscribe does not join).
+ */
+final class AudioCaptureHub implements VoiceProcessorFrameListener, VoiceProcessorErrorListener {
+
+    private static final String TAG = "KeywordDetectionAPI";
+
+    static final int SAMPLE_RATE = 16000;
+    /** Samples per captured frame (80 ms). */
+    static final int FRAME_SAMPLES = 1280;
+    /** Frames buffered for slow subscribers (~2.5 s). */
+    static final int RING_CAPACITY = 32;
+
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+
+    private static final AudioCaptureHub SHARED = new AudioCaptureHub();
+
+    /** Receives captured frames on the subscription's thread. */
+    interface FrameConsumer {
+        /** @param energy mean-square frame energy in PCM16 units, computed once per frame */
+        void onFrame(@NonNull short[] pcm, int length, long frameIndex, long captureNanos, long energy);
+    }
+
+    private final BroadcastFrameRing ring = new BroadcastFrameRing(RING_CAPACITY, FRAME_SAMPLES);
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private boolean recording; // guarded by this
+
+    static AudioCaptureHub shared() {
+        return SHARED;
+    }
+
+    /**
+     * Start receiving frames captured from now on, starting the recorder if needed.
+     *
+     * @param threadPriority Android thread priority of the subscription's thread
+     * @throws IllegalStateException if the recorder cannot be started (e.g. permission missing)
+     */
+    @NonNull
+    synchronized Subscription subscribe(@NonNull String name, int threadPriority, @NonNull FrameConsumer consumer) {
+        if (!recording) startRecording();
+        Subscription s = new Subscription(name, threadPriority, consumer, ring.head());
+        subscriptions.add(s);
+        s.thread.start();
+        return s;
+    }
+
+    /** Stop a subscription; the recorder stops with the last one. Does not wait for the subscriber thread. */
+    synchronized void unsubscribe(@NonNull Subscription s) {
+        if (!subscriptions.remove(s)) return;
+        s.running = false;
+        LockSupport.unpark(s.thread);
+        if (subscriptions.isEmpty()) stopRecording();
+    }
+
+    synchronized boolean isRecording() {
+        return recording;
+    }
+
+    /** Frames captured since the process started. */
+    long capturedFrames() {
+        return ring.head();
+    }
+
+    int subscriberCount() {
+        return subscriptions.size();
+    }
+
+    /** Copy captured audio ending at {@code endCaptureNanos}, oldest first; see {@link BroadcastFrameRing#readWindow}. */
+    int readWindow(@NonNull short[] out, int samples, long endCaptureNanos) {
+        return ring.readWindow(out, samples, endCaptureNanos);
+    }
+
+    /** Longest history {@link #readWindow} can return, in samples. */
+    int historySamples() {
+        return (ring.capacity() - 1) * FRAME_SAMPLES;
+    }
+
+    // Recorder thread.
+    @Override
+    public void onFrame(short[] frame) {
+        ring.publish(frame, frame.length, System.nanoTime());
+        for (Subscription s : subscriptions) {
+            LockSupport.unpark(s.thread);
+        }
+    }
+
+    @Override
+    public void onError(VoiceProcessorException error) {
+        Log.w(TAG, "Shared capture error: " + error.getMessage());
+    }
+
+    private void startRecording() {
+        VoiceProcessor vp = VoiceProcessor.getInstance();
+        vp.addFrameListener(this);
+        vp.addErrorListener(this);
+        try {
+            vp.start(FRAME_SAMPLES, SAMPLE_RATE);
+        } catch (VoiceProcessorException e) {
+            vp.removeFrameListener(this);
+            vp.removeErrorListener(this);
+            throw new IllegalStateException("Cannot start shared audio capture: " + e.getMessage(), e);
+        }
+        recording = true;
+        Log.d(TAG, "Shared capture started");
+    }
+
+    private void stopRecording() {
+        VoiceProcessor vp = VoiceProcessor.getInstance();
+        vp.removeFrameListener(this);
+        vp.removeErrorListener(this);
+        try {
+            vp.stop();
+        } catch (VoiceProcessorException e) {
+            Log.w(TAG, "Stopping shared capture failed: " + e.getMessage());
+        }
+        recording = false;
+        Log.d(TAG, "Shared capture stopped");
+    }
+
+    /** One subscriber: a read cursor, a frame-sized scratch buffer and a thread. */
+    final class Subscription implements Runnable {
+        private final FrameConsumer consumer;
+        private final int threadPriority;
+        private final short[] scratch = new short[FRAME_SAMPLES];
+        private final long[] meta = new long[2];
+        private final AtomicLong lostFrames = new AtomicLong();
+        final Thread thread;
+        private long cursor;
+        volatile boolean running = true;
+
+        Subscription(@NonNull String name, int threadPriority, @NonNull FrameConsumer consumer, long cursor) {
+            this.consumer = consumer;
+            this.threadPriority = threadPriority;
+            this.cursor = cursor;
+            this.thread = new Thread(this, "kwd-capture-" + name);
+            this.thread.setDaemon(true);
+        }
+
+        /** Frames skipped because this subscriber fell more than the ring capacity behind. */
+        long lostFrames() {
+            return lostFrames.get();
+        }
+
+        @Override
+        public void run() {
+            try {
+                Process.setThreadPriority(threadPriority);
+            } catch (Throwable t) {
+                Log.w(TAG, "setThreadPriority failed for " + thread.getName() + ": " + t.getMessage());
+            }
+            while (running) {
+                int n = ring.read(cursor, scratch, meta);
+                if (n == 0) {
+                    LockSupport.parkNanos(this, MAX_PARK_NANOS);
+                    continue;
+                }
+                if (n < 0) {
+                    long oldest = ring.oldest();
+                    lostFrames.addAndGet(oldest - cursor);
+                    cursor = oldest;
+                    continue;
+                }
+                try {
+                    consumer.onFrame(scratch, n, cursor, meta[0], meta[1]);
+                } catch (Throwable t) {
+                    Log.w(TAG, "Captured frame handling failed in " + thread.getName() + ": " + t.getMessage());
+                }
+                cursor++;
+            }
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.davoice.keywordspotting;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * BroadcastFrameRing
+ *
+ * Single-producer, multi-consumer ring of PCM16 frames. The producer never waits: each
+ * consumer keeps its own read cursor (a frame sequence number) and a consumer that falls more
+ * than {@link #capacity()} frames behind skips ahead and counts the lost frames. Slots are
+ * preallocated; publishing a frame does not allocate.
+ *
+ * Consumers copy a frame out with {@link #read} and the copy is validated afterwards, so a
+ * frame overwritten mid-copy is reported as lost rather than delivered torn.
+ *
+ * Per-frame features are computed once by the producer and stored next to the samples, so
+ * consumers do not each recompute them: currently the frame energy (mean square, PCM16 units)
+ * used by {@link VadGate}. The ring doubles as recent-audio history ({@link #readWindow}).
+ *
+ * Thread-safety: exactly one producer thread calls {@link #publish}; any number of consumer
+ * threads call {@link #read} with their own cursors. No monitors are used.
+ */
+final class BroadcastFrameRing {
+
+    private final short[][] slots;
+    private final int[] lengths;
+    private final long[] captureNanos;
+    private final long[] energy;
+    private final int mask;
+
+    private final AtomicLong head = new AtomicLong(); // sequence number of the next frame written
+
+    BroadcastFrameRing(int capacity, int frameSamples) {
+        int cap = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.slots = new short[cap][];
+        this.lengths = new int[cap];
+        this.captureNanos = new long[cap];
+        this.energy = new long[cap];
+        this.mask = cap - 1;
+        for (int i = 0; i < cap; i++) {
+            slots[i] = new short[frameSamples];
+        }
+    }
+
+    int capacity() {
+        return slots.length;
+    }
+
+    /** Largest frame a slot holds; longer frames are truncated on publish. */
+    int slotSamples() {
+        return slots[0].length;
+    }
+
+    /** Sequence number the next published frame will get (= frames published so far). */
+    long head() {
+        return head.get();
+    }
+
+    /** Producer side: copy one frame in. Frames longer than the slot size are truncated. */
+    void publish(short[] pcm, int length, long captureTimeNanos) {
+        long h = head.get();
+        int i = (int) (h & mask);
+        short[] slot = slots[i];
+        int n = Math.min(length, slot.length);
+        long sum = 0L;
+        for (int k = 0; k < n; k++) {
+            int v = pcm[k];
+            slot[k] = (short) v;
+            sum += v * v;
+        }
+        lengths[i] = n;
+        captureNanos[i] = captureTimeNanos;
+        energy[i] = n == 0 ? 0L : sum / n;
+        head.set(h + 1);
+    }
+
+    /**
+     * Consumer side: copy frame {@code seq} into {@code out}, its capture time into
+     * {@code metaOut[0]} and its energy into {@code metaOut[1]}.
+     *
+     * @return the number of samples copied, 0 if the frame is not published yet, or -1 if it
+     *         has already been overwritten (the consumer must skip ahead, see {@link #oldest()})
+     */
+    int read(long seq, short[] out, long[] metaOut) {
+        long h = head.get();
+        if (seq >= h) return 0;
+        if (h - seq > slots.length) return -1;
+        int i = (int) (seq & mask);
+        int n = Math.min(lengths[i], out.length);
+        System.arraycopy(slots[i], 0, out, 0, n);
+        metaOut[0] = captureNanos[i];
+        metaOut[1] = energy[i];
+        // The producer starts overwriting this slot while writing seq + capacity.
+        if (head.get() - seq >= slots.length) return -1;
+        return n;
+    }
+
+    /**
+     * Copy up to {@code samples} samples (or as many as the ring holds) ending with the newest
+     * frame captured at or before {@code endCaptureNanos}, oldest first. The frame being
+     * overwritten next is never included, so the copy is retried only if the producer laps the
+     * reader during the copy.
+     *
+     * @return the number of samples copied (0 if no such frame is still held)
+     */
+    int readWindow(short[] out, int samples, long endCaptureNanos) {
+        int want = Math.min(samples, out.length);
+        for (int attempt = 0; attempt < 4; attempt++) {
+            long h = head.get();
+            long floor = Math.max(0L, h - (slots.length - 1));
+            long end = h;
+            while (end > floor && captureNanos[(int) ((end - 1) & mask)] > endCaptureNanos) {
+                end--;
+            }
+            if (end == floor) return 0;
+            long first = end;
+            int total = 0;
+            while (first > floor && total < want) {
+                first--;
+                total += lengths[(int) (first & mask)];
+            }
+            int skip = Math.max(0, total - want);
+            int n = 0;
+            for (long seq = first; seq < end; seq++) {
+                int i = (int) (seq & mask);
+                int len = Math.min(Math.max(0, lengths[i] - skip), want - n);
+                System.arraycopy(slots[i], skip, out, n, len);
+                n += len;
+                skip = 0;
+            }
+            if (head.get() - first < slots.length) return n;
+        }
+        return 0;
+    }
+
+    /** Oldest sequence number that is still readable. */
+    long oldest() {
+        return Math.max(0L, head.get() - slots.length + 1);
+    }
+}
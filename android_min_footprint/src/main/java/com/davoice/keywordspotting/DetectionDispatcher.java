@@ -0,0 +1,121 @@
+package com.davoice.keywordspotting;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.davoice.keywordspotting.KeywordDetectionAPI.OnDetectionEventListener;
+import com.davoice.keywordspotting.KeywordDetectionAPI.OnKeywordDetectionListener;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * DetectionDispatcher
+ *
+ * Delivers detections to one listener on the listener's Executor, so user code never runs on
+ * the library's inference thread. Events go through a bounded queue of pooled
+ * {@link DetectionEvent}s; when the listener falls behind, new events are dropped and counted
+ * instead of queuing without bound or blocking the detector.
+ *
+ * Thread-safety: {@link #post} may be called from any thread; deliveries are serialized
+ * (at most one drain task is scheduled at a time).
+ */
+final class DetectionDispatcher implements Runnable {
+
+    private static final String TAG = "KeywordDetectionAPI";
+
+    /** Events buffered per listener before new ones are dropped. */
+    static final int QUEUE_CAPACITY = 32;
+
+    /** The listener object the caller registered (used to find this dispatcher on removal). */
+    final Object key;
+    private final OnDetectionEventListener listener;
+    private final Executor executor;
+    private final ArrayBlockingQueue<DetectionEvent> pending = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final ArrayBlockingQueue<DetectionEvent> free = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final AtomicLong dropped = new AtomicLong();
+
+    DetectionDispatcher(@NonNull OnDetectionEventListener listener, @NonNull Executor executor) {
+        this(listener, listener, executor);
+    }
+
+    /** Adapts the phrase-only listener; the adapter is created once, not per event. */
+    DetectionDispatcher(@NonNull final OnKeywordDetectionListener listener, @NonNull Executor executor) {
+        this(listener, event -> listener.onKeywordDetected(event.getInstanceId(), event.getPhrase()), executor);
+    }
+
+    private DetectionDispatcher(@NonNull Object key,
+                                @NonNull OnDetectionEventListener listener,
+                                @NonNull Executor executor) {
+        this.key = key;
+        this.listener = listener;
+        this.executor = executor;
+        for (int i = 0; i < QUEUE_CAPACITY; i++) {
+            free.offer(new DetectionEvent());
+        }
+    }
+
+    /**
+     * Queue one detection for delivery. Never blocks and does not allocate.
+     *
+     * @return false if the event was dropped because the queue is full
+     */
+    boolean post(@NonNull KeywordInstance instance,
+                 @NonNull String phrase,
+                 int modelIndex,
+                 long detectionNanos,
+                 long detectionWallMillis) {
+        DetectionEvent e = free.poll();
+        if (e == null) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        instance.describe(e, phrase, modelIndex, detectionNanos, detectionWallMillis);
+        pending.offer(e);
+        schedule();
+        return true;
+    }
+
+    /** Events dropped because this listener was not keeping up. */
+    long droppedCount() {
+        return dropped.get();
+    }
+
+    @Override
+    public void run() {
+        DetectionEvent e;
+        while ((e = pending.poll()) != null) {
+            try {
+                listener.onDetection(e);
+            } catch (Throwable t) {
+                Log.w(TAG, "Detection listener threw for " + e.instanceId + ": " + t.getMessage());
+            } finally {
+                e.clear();
+                free.offer(e);
+            }
+        }
+        scheduled.set(false);
+        if (!pending.isEmpty()) schedule();
+    }
+
+    private void schedule() {
+        if (!scheduled.compareAndSet(false, true)) return;
+        try {
+            executor.execute(this);
+        } catch (RejectedExecutionException ex) {
+            scheduled.set(false);
+            // Drop what is queued; the executor is gone.
+            DetectionEvent e;
+            while ((e = pending.poll()) != null) {
+                e.clear();
+                free.offer(e);
+                dropped.incrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.davoice.keywordspotting;
+
+import androidx.annotation.NonNull;
+
+/**
+ * DetectionEvent
+ *
+ * One keyword detection with the context needed to measure latency and tune thresholds.
+ * Events are pooled: an instance is only valid for the duration of
+ * {@link KeywordDetectionAPI.OnDetectionEventListener#onDetection(DetectionEvent)} and is
+ * recycled afterwards. Copy out any fields you need to keep.
+ *
+ * Timestamps ending in {@code Nanos} use the {@link System#nanoTime()} clock.
+ */
+public final class DetectionEvent {
+
+    String instanceId;
+    String phrase;
+    int modelIndex;
+    float score;
+    float threshold;
+    float modelThreshold;
+    long captureTimeNanos;
+    long detectionTimeNanos;
+    long detectionWallTimeMillis;
+    long frameIndex;
+
+    DetectionEvent() {
+    }
+
+    /** The instance that detected the phrase. */
+    @NonNull
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    /** The model that fired (same as the phrase passed to {@code onKeywordDetected}). */
+    @NonNull
+    public String getPhrase() {
+        return phrase;
+    }
+
+    /** Index of the model in the instance's model list, or -1 if unknown. */
+    public int getModelIndex() {
+        return modelIndex;
+    }
+
+    /** Model score for the triggering window, or NaN when the library does not report one. */
+    public float getScore() {
+        return score;
+    }
+
+    /** Threshold override passed when detection was started (the threshold in effect). */
+    public float getThreshold() {
+        return threshold;
+    }
+
+    /** Threshold configured for this model at creation. */
+    public float getModelThreshold() {
+        return modelThreshold;
+    }
+
+    /**
+     * Capture time of the last frame handed to the detector before it fired (external audio),
+     * or the detection time when the library captures the microphone itself.
+     */
+    public long getCaptureTimeNanos() {
+        return captureTimeNanos;
+    }
+
+    /** When the library reported the detection. */
+    public long getDetectionTimeNanos() {
+        return detectionTimeNanos;
+    }
+
+    /** Wall-clock time of the detection ({@link System#currentTimeMillis()}). */
+    public long getDetectionWallTimeMillis() {
+        return detectionWallTimeMillis;
+    }
+
+    /** Index of the triggering frame among the frames this instance processed, or -1 if unknown. */
+    public long getFrameIndex() {
+        return frameIndex;
+    }
+
+    /** Capture-to-detection latency. */
+    public long getLatencyNanos() {
+        return detectionTimeNanos - captureTimeNanos;
+    }
+
+    /** A detached copy that stays valid after the callback returns. */
+    @NonNull
+    public DetectionEvent copy() {
+        DetectionEvent o = new DetectionEvent();
+        o.instanceId = instanceId;
+        o.phrase = phrase;
+        o.modelIndex = modelIndex;
+        o.score = score;
+        o.threshold = threshold;
+        o.modelThreshold = modelThreshold;
+        o.captureTimeNanos = captureTimeNanos;
+        o.detectionTimeNanos = detectionTimeNanos;
+        o.detectionWallTimeMillis = detectionWallTimeMillis;
+        o.frameIndex = frameIndex;
+        return o;
+    }
+
+    void clear() {
+        instanceId = null;
+        phrase = null;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "DetectionEvent{" + instanceId + ", " + phrase + ", model#" + modelIndex
+                + ", score=" + score + ", threshold=" + threshold
+                + ", frame=" + frameIndex + ", latencyMs=" + (getLatencyNanos() / 1_000_000L) + "}";
+    }
+}
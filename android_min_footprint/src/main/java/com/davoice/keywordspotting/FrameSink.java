@@ -0,0 +1,125 @@
+package com.davoice.keywordspotting;
+
+import androidx.annotation.NonNull;
+
+import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
+
+/**
+ * FrameSink
+ *
+ * Handle for pushing external PCM16 frames into one KeywordDetectionAPI instance.
+ * Obtain it once via {@link KeywordDetectionAPI#getFrameSink(String)} and keep it on the
+ * capture thread: a push is a bounded copy into a lock-free ring, with no map lookup and
+ * no monitor. Frames are handed to the detector on a dedicated consumer thread.
+ *
+ * Each frame is stamped with its capture time ({@link System#nanoTime()} at push unless the
+ * caller supplies one), which is reported back in {@link DetectionEvent#getCaptureTimeNanos()}.
+ *
+ * Thread-safety: pushes may come from any thread, also concurrently with
+ * {@code KeywordDetectionAPI.pushNextFrame} on the same instance; each push claims its own slot.
+ * Frames pushed concurrently from several threads are queued in claim order.
+ */
+public final class FrameSink {
+
+    private final String instanceId;
+    private final PcmFrameRing ring;
+    private volatile boolean closed;
+
+    FrameSink(@NonNull String instanceId, @NonNull PcmFrameRing ring) {
+        this.instanceId = instanceId;
+        this.ring = ring;
+    }
+
+    /** The instance this sink feeds. */
+    @NonNull
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    /**
+     * Queue one frame. Never blocks.
+     *
+     * @return true if queued; false if the ring was full (counted as an overrun) or the sink is closed
+     */
+    public boolean push(@NonNull short[] pcm, int length) {
+        return push(pcm, 0, length);
+    }
+
+    /**
+     * Queue {@code length} samples of {@code pcm} starting at {@code offset}. Never blocks.
+     *
+     * @return true if queued; false if the ring was full (counted as an overrun) or the sink is closed
+     */
+    public boolean push(@NonNull short[] pcm, int offset, int length) {
+        if (closed) return false;
+        return ring.offer(pcm, offset, length, System.nanoTime(), false);
+    }
+
+    /**
+     * Like {@link #push(short[], int, int)}, with the frame's capture time supplied by the caller
+     * (e.g. derived from {@code AudioRecord.getTimestamp}), in the {@link System#nanoTime()} clock.
+     *
+     * @return true if queued; false if the ring was full (counted as an overrun) or the sink is closed
+     */
+    public boolean push(@NonNull short[] pcm, int offset, int length, long captureTimeNanos) {
+        if (closed) return false;
+        return ring.offer(pcm, offset, length, captureTimeNanos, false);
+    }
+
+    /**
+     * Queue {@code length} samples read from {@code pcm} at absolute index {@code offset}.
+     * Direct and heap buffers are copied straight into the ring; position/limit are untouched.
+     *
+     * @return true if queued; false if the ring was full (counted as an overrun) or the sink is closed
+     */
+    public boolean push(@NonNull ShortBuffer pcm, int offset, int length) {
+        if (closed) return false;
+        return ring.offer(pcm, offset, length, System.nanoTime(), false);
+    }
+
+    /**
+     * Queue {@code length} PCM16 samples read from {@code pcm} starting at absolute byte index
+     * {@code byteOffset}. Samples are decoded in the buffer's byte order, so set
+     * {@code ByteOrder.LITTLE_ENDIAN} on capture buffers. Position/limit are untouched.
+     *
+     * @return true if queued; false if the ring was full (counted as an overrun) or the sink is closed
+     */
+    public boolean push(@NonNull ByteBuffer pcm, int byteOffset, int length) {
+        if (closed) return false;
+        return ring.offer(pcm, byteOffset, length, System.nanoTime(), false);
+    }
+
+    // KeywordDetectionAPI.pushNextFrame: lossless, waits while the ring is full.
+    void pushBlocking(@NonNull short[] pcm, int offset, int length) {
+        if (!closed) ring.offer(pcm, offset, length, System.nanoTime(), true);
+    }
+
+    void pushBlocking(@NonNull ShortBuffer pcm, int offset, int length) {
+        if (!closed) ring.offer(pcm, offset, length, System.nanoTime(), true);
+    }
+
+    void pushBlocking(@NonNull ByteBuffer pcm, int byteOffset, int length) {
+        if (!closed) ring.offer(pcm, byteOffset, length, System.nanoTime(), true);
+    }
+
+    /** Frames dropped because the detector could not keep up (pushes through this sink only). */
+    public long getOverrunCount() {
+        return ring.overrunCount();
+    }
+
+    /** Frames queued and not yet handed to the detector. */
+    public int getQueuedFrames() {
+        return ring.size();
+    }
+
+    /** True once the owning instance has been destroyed. */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    void close() {
+        closed = true;
+        ring.close();
+    }
+}
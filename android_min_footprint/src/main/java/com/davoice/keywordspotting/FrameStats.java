@@ -0,0 +1,14 @@
+package com.davoice.keywordspotting;
+
+/** Where the thread feeding a detector records per-frame work (see {@link MetricsRecorder}). */
+interface FrameStats {
+
+    /** One frame went through pushNextFrame in {@code nanos}. */
+    void recordFrame(long nanos);
+
+    /** The voice-activity gate held one frame back. */
+    void recordSkipped();
+
+    /** The gate released {@code frames} held-back frames as pre-roll (they are inferred after all). */
+    void recordPreRollFlushed(int frames);
+}
@@ -0,0 +1,312 @@
+package com.davoice.keywordspotting;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.davoice.keywordsdetection.keywordslibrary.KeyWordsDetection;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * KeywordFileScanner
+ *
+ * Runs keyword models over recorded audio (WAV or raw 16 kHz mono PCM16 files) as fast as the
+ * CPU allows, for QA and false-accept analysis, and returns a detection timeline per file.
+ *
+ * Files are streamed through memory-mapped windows and pushed frame by frame with no real-time
+ * pacing. A scan splits the file list over a ForkJoin pool; each worker borrows a detector
+ * (loaded once, reused for every file it scans, reset between files), so idle workers steal
+ * files and long recordings do not hold up the rest.
+ *
+ * Nothing here needs the Android runtime beyond what the detector itself needs; with a build of
+ * the detection library for the JVM it runs headless (the context may then be null).
+ *
+ * Usage:
+ *
+ *   KeywordFileScanner scanner = new KeywordFileScanner(ctx, models, thresholds, bufferCnts);
+ *   scanner.setLicenseKey(key);
+ *   for (KeywordFileScanner.FileResult r : scanner.scan(files, 8).get()) {
+ *       System.out.println(r.file + ": " + r.detections);
+ *   }
+ *
+ * Thread-safety: a scanner may run several scans at once; each has its own pool and detectors.
+ */
+public final class KeywordFileScanner {
+
+    /** Samples pushed per frame (80 ms), as with shared capture. */
+    public static final int FRAME_SAMPLES = AudioCaptureHub.FRAME_SAMPLES;
+    public static final int SAMPLE_RATE = AudioCaptureHub.SAMPLE_RATE;
+
+    /** Frames between checks for cancellation of the scan. */
+    private static final int CANCEL_CHECK_FRAMES = 256;
+
+    /** One detection in a file. */
+    public static final class Detection {
+        public final String modelName;
+        public final int modelIndex;      // index in the scanner's model list, -1 if unmatched
+        public final long sampleOffset;   // end of the frame that triggered it
+
+        Detection(@NonNull String modelName, int modelIndex, long sampleOffset) {
+            this.modelName = modelName;
+            this.modelIndex = modelIndex;
+            this.sampleOffset = sampleOffset;
+        }
+
+        /** Offset into the file in milliseconds. */
+        public long offsetMillis() {
+            return sampleOffset * 1000L / SAMPLE_RATE;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return modelName + "@" + offsetMillis() + "ms";
+        }
+    }
+
+    /** Outcome of scanning one file. */
+    public static final class FileResult {
+        public final File file;
+        public final long samples;                 // samples scanned
+        public final List<Detection> detections;   // in file order
+        public final long scanNanos;
+        public final @Nullable String error;       // null if the file was scanned completely
+
+        FileResult(@NonNull File file,
+                   long samples,
+                   @NonNull List<Detection> detections,
+                   long scanNanos,
+                   @Nullable String error) {
+            this.file = file;
+            this.samples = samples;
+            this.detections = detections;
+            this.scanNanos = scanNanos;
+            this.error = error;
+        }
+
+        public boolean isOk() {
+            return error == null;
+        }
+
+        public long durationMillis() {
+            return samples * 1000L / SAMPLE_RATE;
+        }
+
+        /** Audio time scanned per wall time (e.g. 200 = 200x faster than real time). */
+        public double speedFactor() {
+            return scanNanos == 0 ? 0.0 : samples * 1e9 / SAMPLE_RATE / scanNanos;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return "FileResult{" + file + ", " + durationMillis() + " ms, detections=" + detections
+                    + (error != null ? ", error=" + error : "") + "}";
+        }
+    }
+
+    private final @Nullable Context context;
+    private final ModelSpec spec;
+    private final float listenThreshold;
+    private volatile @Nullable String licenseKey;
+
+    /**
+     * @throws IllegalArgumentException if the arrays are empty or their sizes differ
+     */
+    public KeywordFileScanner(@Nullable Context context,
+                              @NonNull String[] modelPaths,
+                              @NonNull float[] thresholds,
+                              @NonNull int[] bufferCnts) {
+        int n = modelPaths.length;
+        if (n == 0 || thresholds.length != n || bufferCnts.length != n) {
+            throw new IllegalArgumentException("modelPaths, thresholds and bufferCnts must be non-empty and the same size");
+        }
+        this.context = context;
+        this.spec = n == 1
+                ? ModelSpec.single(modelPaths[0], thresholds[0], bufferCnts[0])
+                : ModelSpec.multi(modelPaths, thresholds, bufferCnts, new long[n]);
+        float min = thresholds[0];
+        for (float t : thresholds) min = Math.min(min, t);
+        this.listenThreshold = min;
+    }
+
+    /** License applied to every detector the scanner loads. */
+    public void setLicenseKey(@Nullable String licenseKey) {
+        this.licenseKey = licenseKey;
+    }
+
+    /**
+     * Scan {@code files} on a new ForkJoin pool of {@code parallelism} workers (one detector
+     * each). A file that cannot be read yields a result with {@link FileResult#error} set; the
+     * other files are still scanned. Cancelling the future stops the scan within a few frames.
+     *
+     * @return results in the order of {@code files}
+     */
+    @NonNull
+    public Future<List<FileResult>> scan(@NonNull List<File> files, int parallelism) {
+        final ForkJoinPool pool = new ForkJoinPool(Math.max(1, parallelism));
+        final Scan scan = new Scan(files.toArray(new File[0]));
+        return pool.submit(new RecursiveTask<List<FileResult>>() {
+            @Override
+            protected List<FileResult> compute() {
+                try {
+                    scan.root = this;
+                    new Split(scan, 0, scan.files.length).invoke();
+                    return Collections.unmodifiableList(Arrays.asList(scan.results));
+                } finally {
+                    scan.close();
+                    pool.shutdown();
+                }
+            }
+        });
+    }
+
+    /** State of one scan: inputs, results and the detectors its workers share. */
+    private final class Scan {
+        final File[] files;
+        final FileResult[] results;
+        final ConcurrentLinkedQueue<Lane> idle = new ConcurrentLinkedQueue<>();
+        final ConcurrentLinkedQueue<Lane> all = new ConcurrentLinkedQueue<>();
+        volatile ForkJoinTask<?> root;
+
+        Scan(@NonNull File[] files) {
+            this.files = files;
+            this.results = new FileResult[files.length];
+        }
+
+        boolean cancelled() {
+            ForkJoinTask<?> r = root;
+            return r != null && r.isCancelled();
+        }
+
+        @NonNull
+        Lane borrow() {
+            Lane lane = idle.poll();
+            if (lane != null) return lane;
+            try {
+                lane = new Lane();
+            } catch (Exception e) {
+                throw new IllegalStateException("Loading detector for " + spec + " failed", e);
+            }
+            all.add(lane);
+            return lane;
+        }
+
+        void close() {
+            for (Lane lane : all) {
+                try {
+                    if (lane.listening) lane.detector.stopListening();
+                } catch (Throwable ignored) {
+                    // best-effort
+                }
+            }
+        }
+    }
+
+    /** Halves the file range until one file is left, so idle workers can steal the other half. */
+    private final class Split extends RecursiveTask<Void> {
+        private static final long serialVersionUID = 1L;
+
+        private final Scan scan;
+        private final int from;
+        private final int to;
+
+        Split(@NonNull Scan scan, int from, int to) {
+            this.scan = scan;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Void compute() {
+            if (to - from <= 1) {
+                if (from < to && !scan.cancelled()) {
+                    Lane lane = scan.borrow();
+                    try {
+                        scan.results[from] = lane.scan(scan, scan.files[from]);
+                    } finally {
+                        scan.idle.add(lane);
+                    }
+                }
+                return null;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new Split(scan, from, mid), new Split(scan, mid, to));
+            return null;
+        }
+    }
+
+    /** One loaded detector; used by one worker at a time. */
+    private final class Lane {
+        final KeyWordsDetection detector;
+        final short[] frame = new short[FRAME_SAMPLES];
+        // Guarded by this; the detector may call back on its own thread.
+        private List<Detection> hits = new ArrayList<>();
+        private volatile long position;
+        boolean listening;
+
+        Lane() throws Exception {
+            detector = spec.newDetector(context, true, 0);
+            detector.initialize((detected, modelName) -> {
+                if (detected) onHit(modelName);
+            });
+            String key = licenseKey;
+            if (key != null) detector.setLicenseKey(key);
+        }
+
+        private synchronized void onHit(@NonNull String modelName) {
+            hits.add(new Detection(modelName, spec.indexOf(modelName), position));
+        }
+
+        @NonNull
+        FileResult scan(@NonNull Scan scan, @NonNull File file) {
+            long t0 = System.nanoTime();
+            long samples = 0L;
+            String error = null;
+            try (PcmFileReader in = PcmFileReader.open(file)) {
+                // Restart so no model state carries over from the previous file.
+                if (listening) detector.stopListening();
+                listening = false;
+                detector.startListeningExternalAudio(listenThreshold);
+                listening = true;
+                synchronized (this) {
+                    hits = new ArrayList<>();
+                }
+                for (int frames = 0; ; frames++) {
+                    int n = in.read(frame, FRAME_SAMPLES);
+                    if (n < 0) break;
+                    if (n < FRAME_SAMPLES) Arrays.fill(frame, n, FRAME_SAMPLES, (short) 0);
+                    samples += n;
+                    position = samples;
+                    detector.pushNextFrame(frame, FRAME_SAMPLES);
+                    if (frames % CANCEL_CHECK_FRAMES == 0 && scan.cancelled()) {
+                        error = "cancelled";
+                        break;
+                    }
+                }
+            } catch (IOException e) {
+                error = e.getMessage() != null ? e.getMessage() : e.toString();
+            } catch (Exception e) {
+                error = "Detector failed: " + e;
+            }
+            List<Detection> timeline;
+            synchronized (this) {
+                timeline = Collections.unmodifiableList(hits);
+                hits = new ArrayList<>();
+            }
+            return new FileResult(file, samples, timeline, System.nanoTime() - t0, error);
+        }
+    }
+}
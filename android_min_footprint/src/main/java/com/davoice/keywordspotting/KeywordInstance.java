@@ -0,0 +1,326 @@
+package com.davoice.keywordspotting;
+
+import android.os.Process;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.davoice.keywordspotting.KeywordDetectionAPI.LatencyProfile;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import ai.onnxruntime.OrtException;
+
+/**
+ * KeywordInstance
+ *
+ * Per-ID state kept by {@link KeywordDetectionAPI}: the (possibly shared) engine it runs on,
+ * the spec that engine was built from, the control state that must survive an engine change
+ * (license, listening mode, foreground service), and the external-audio ingestion path
+ * (frame ring, sink handle and its consumer thread).
+ *
+ * Thread-safety: this object's monitor is the per-instance lock for control operations.
+ * The consumer thread's per-frame push holds only the engine monitor; producers pushing
+ * into the sink hold neither.
+ */
+final class KeywordInstance {
+
+    private static final String TAG = "KeywordDetectionAPI";
+
+    /** Ring depth in frames (~2 s of audio at 30 ms frames). */
+    static final int FRAME_RING_CAPACITY = 64;
+    /** Initial samples per ring slot; slots grow once if larger frames arrive. */
+    static final int FRAME_SLOT_SAMPLES = 1280;
+    /** Pushed audio kept for {@link #copyAudio} when history is enabled (~2.5 s). */
+    static final int HISTORY_SAMPLES = 40000;
+
+    /**
+     * MICROPHONE: the library captures audio itself. CAPTURE_HUB: the engine is fed from the
+     * shared {@link AudioCaptureHub}. EXTERNAL: the app pushes frames.
+     */
+    enum ListenMode { NONE, MICROPHONE, CAPTURE_HUB, EXTERNAL }
+
+    /** Receives detections fired by this instance's engine. */
+    interface DetectionHandler {
+        void onDetected(@NonNull KeywordInstance instance, @NonNull String modelName);
+    }
+
+    final String instanceId;
+    private final DetectionHandler handler;
+
+    /** Per-instance listeners, each bound to its own executor. */
+    final List<DetectionDispatcher> dispatchers = new CopyOnWriteArrayList<>();
+    /** Detections dropped for this instance because a listener queue was full. */
+    final AtomicLong droppedEvents = new AtomicLong();
+    final MetricsRecorder metrics;
+
+    // Written under this; read by the consumer thread.
+    volatile SharedDetector engine;
+
+    // Written under this; spec, listenMode and listenThreshold are also read on the callback thread.
+    volatile ModelSpec spec;
+    @Nullable String licenseKey;
+    volatile ListenMode listenMode = ListenMode.NONE;
+    volatile float listenThreshold;
+    boolean foregroundService;
+
+    /**
+     * Sticky instances are never torn down by a stop: they keep listening with {@link #paused}
+     * set, so the next start resumes on the running stream at no cost. Written under this.
+     */
+    volatile boolean sticky;
+    /** Listening continues but detections are not delivered; read on the callback thread. */
+    volatile boolean paused;
+
+    // Written by the thread feeding the detector just before each frame is handed to it.
+    private volatile long frameIndex = -1L;
+    private volatile long frameCaptureNanos;
+
+    private volatile LatencyProfile profile;
+    /** Voice-activity gate settings for wrapper-fed audio; null = every frame is inferred. */
+    volatile @Nullable VadGate.Settings vad;
+    private final VadGate gate = new VadGate(); // used only by the consumer thread
+
+    /** Keep recently pushed frames for {@link #copyAudio}; the ring is built by the consumer thread. */
+    volatile boolean historyEnabled;
+    private volatile BroadcastFrameRing history;
+
+    private volatile PcmFrameRing ring;
+    private FrameSink sink;
+    private Thread consumer;
+    private volatile boolean running;
+
+    KeywordInstance(@NonNull String instanceId,
+                    @NonNull SharedDetector engine,
+                    @NonNull ModelSpec spec,
+                    @NonNull LatencyProfile profile,
+                    @NonNull DetectionHandler handler) {
+        this.instanceId = instanceId;
+        this.engine = engine;
+        this.spec = spec;
+        this.profile = profile;
+        this.handler = handler;
+        this.metrics = new MetricsRecorder(spec);
+        engine.attach(this);
+    }
+
+    void onDetected(@NonNull String modelName) {
+        handler.onDetected(this, modelName);
+    }
+
+    /**
+     * Fill a pooled event for a detection of {@code modelName}. With external audio the frame
+     * fields describe the last frame pushed before the callback fired; with library-owned
+     * microphone capture there is no frame, so the capture time is the detection time.
+     */
+    void describe(@NonNull DetectionEvent e,
+                  @NonNull String modelName,
+                  int idx,
+                  long detectionNanos,
+                  long wallMillis) {
+        ModelSpec s = spec;
+        e.instanceId = instanceId;
+        e.phrase = modelName;
+        e.modelIndex = idx;
+        e.score = Float.NaN;
+        e.threshold = listenThreshold;
+        e.modelThreshold = idx >= 0 && idx < s.size() ? s.thresholds[idx] : Float.NaN;
+        e.detectionTimeNanos = detectionNanos;
+        e.detectionWallTimeMillis = wallMillis;
+        if (listenMode != ListenMode.MICROPHONE && frameIndex >= 0) {
+            e.frameIndex = frameIndex;
+            e.captureTimeNanos = frameCaptureNanos;
+        } else {
+            e.frameIndex = -1L;
+            e.captureTimeNanos = detectionNanos;
+        }
+    }
+
+    @NonNull
+    LatencyProfile profile() {
+        return profile;
+    }
+
+    void setProfile(@NonNull LatencyProfile profile) {
+        this.profile = profile;
+    }
+
+    /**
+     * Move this instance onto another engine, carrying over license, foreground service and
+     * listening state. Make-before-break: the fresh engine starts listening before the old one
+     * is released, and the consumer thread picks up the new engine at its next frame; if the
+     * fresh engine cannot listen, nothing changes. The library-owned microphone cannot be opened
+     * twice, so in {@link ListenMode#MICROPHONE} the old engine is stopped first instead.
+     * Caller holds this monitor and releases the returned engine to the cache.
+     *
+     * @return the previous engine
+     */
+    @NonNull
+    SharedDetector adopt(@NonNull SharedDetector fresh, @NonNull ModelSpec freshSpec) throws OrtException {
+        SharedDetector old = engine;
+        boolean micHandover = listenMode == ListenMode.MICROPHONE && fresh != old;
+        if (licenseKey != null) fresh.setLicenseKey(licenseKey);
+        if (listenMode != ListenMode.NONE && !micHandover) {
+            fresh.acquireListening(listenMode, listenThreshold, profile);
+        }
+        fresh.attach(this);
+        engine = fresh;
+        old.detach(this);
+        if (!freshSpec.equals(spec)) metrics.onSpecChanged(freshSpec);
+        spec = freshSpec;
+        try {
+            if (listenMode != ListenMode.NONE) old.releaseListening();
+            if (foregroundService) old.releaseForeground();
+        } catch (Throwable t) {
+            Log.w(TAG, "Stopping previous engine failed for " + instanceId + ": " + t.getMessage());
+        }
+        if (foregroundService) fresh.acquireForeground();
+        if (micHandover) {
+            try {
+                fresh.acquireListening(listenMode, listenThreshold, profile);
+            } catch (OrtException | RuntimeException e) {
+                listenMode = ListenMode.NONE;
+                paused = false;
+                throw e;
+            }
+        }
+        return old;
+    }
+
+    /** Drop this instance's listening/foreground references and detach from its engine. Caller holds this monitor. */
+    @NonNull
+    SharedDetector detachEngine() {
+        SharedDetector e = engine;
+        e.detach(this);
+        try {
+            if (listenMode != ListenMode.NONE) e.releaseListening();
+            if (foregroundService) e.releaseForeground();
+        } catch (Throwable t) {
+            Log.w(TAG, "Stopping engine failed for " + instanceId + ": " + t.getMessage());
+        }
+        listenMode = ListenMode.NONE;
+        paused = false;
+        foregroundService = false;
+        return e;
+    }
+
+    /** Record the frame about to be handed to the detector (read back by {@link #describe}). */
+    void markFrame(long index, long captureNanos) {
+        frameCaptureNanos = captureNanos;
+        frameIndex = index;
+    }
+
+    /**
+     * Copy up to {@code samples} samples of this instance's audio ending with the frame captured
+     * at {@code endCaptureNanos}: from the shared capture, or from the pushed-audio history.
+     *
+     * @return samples copied; 0 if the audio is not held (library-owned microphone, history
+     *         off, or already overwritten)
+     */
+    int copyAudio(long endCaptureNanos, @NonNull short[] out, int samples) {
+        switch (listenMode) {
+            case CAPTURE_HUB:
+                return AudioCaptureHub.shared().readWindow(out, samples, endCaptureNanos);
+            case EXTERNAL:
+                BroadcastFrameRing h = history;
+                return h == null ? 0 : h.readWindow(out, samples, endCaptureNanos);
+            default:
+                return 0;
+        }
+    }
+
+    /** Frames queued in the sink and not yet handed to the detector (0 without a sink). */
+    int queuedFrames() {
+        PcmFrameRing r = ring;
+        return r == null ? 0 : r.size();
+    }
+
+    /** Frames dropped because the sink's ring was full, plus shared-capture frames its engine missed. */
+    long droppedFrames() {
+        PcmFrameRing r = ring;
+        return (r == null ? 0L : r.overrunCount()) + engine.capturedFramesLost();
+    }
+
+    /** Returns the instance's sink, starting the consumer thread on first use. */
+    @NonNull
+    synchronized FrameSink frameSink() {
+        if (sink == null) {
+            ring = new PcmFrameRing(FRAME_RING_CAPACITY, FRAME_SLOT_SAMPLES);
+            sink = new FrameSink(instanceId, ring);
+            running = true;
+            consumer = new Thread(this::drainLoop, "kwd-frames-" + instanceId);
+            consumer.setDaemon(true);
+            consumer.start();
+        }
+        return sink;
+    }
+
+    /** Close the sink and stop the consumer thread (queued frames are discarded). */
+    void close() {
+        Thread t;
+        synchronized (this) {
+            if (sink != null) sink.close();
+            running = false;
+            t = consumer;
+            consumer = null;
+        }
+        if (t != null) t.interrupt();
+    }
+
+    private void drainLoop() {
+        final PcmFrameRing r = ring;
+        LatencyProfile applied = null;
+        long frames = 0;
+        while (running) {
+            LatencyProfile p = profile;
+            if (p != applied) {
+                applyThreadPriority(p);
+                applied = p;
+            }
+            int idx = r.peek();
+            if (idx < 0) {
+                r.await();
+                continue;
+            }
+            markFrame(frames++, r.captureNanos(idx));
+            if (historyEnabled) {
+                recordHistory(r.slot(idx), r.length(idx), r.captureNanos(idx));
+            } else if (history != null) {
+                history = null;
+            }
+            try {
+                SharedDetector e = engine;
+                VadGate.Settings v = vad;
+                synchronized (e) {
+                    e.pushGated(r.slot(idx), r.length(idx), -1L, gate, v, metrics);
+                }
+            } catch (Throwable t) {
+                Log.w(TAG, "pushNextFrame failed for " + instanceId + ": " + t.getMessage());
+            } finally {
+                r.release();
+            }
+        }
+    }
+
+    // Consumer thread; recorded before the frame is inferred, so it is held when the callback fires.
+    private void recordHistory(@NonNull short[] pcm, int length, long captureNanos) {
+        BroadcastFrameRing h = history;
+        if (h == null || h.slotSamples() < length) {
+            int slot = Math.max(length, FRAME_SLOT_SAMPLES);
+            h = new BroadcastFrameRing(HISTORY_SAMPLES / slot + 2, slot);
+            history = h;
+        }
+        h.publish(pcm, length, captureNanos);
+    }
+
+    private void applyThreadPriority(@NonNull LatencyProfile p) {
+        try {
+            Process.setThreadPriority(p.threadPriority);
+        } catch (Throwable t) {
+            Log.w(TAG, "setThreadPriority(" + p + ") failed for " + instanceId + ": " + t.getMessage());
+        }
+    }
+}
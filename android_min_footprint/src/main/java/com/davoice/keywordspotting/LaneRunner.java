@@ -0,0 +1,104 @@
+package com.davoice.keywordspotting;
+
+import android.os.Process;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.davoice.keywordsdetection.keywordslibrary.KeyWordsDetection;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * LaneRunner
+ *
+ * Runs one frame through several single-model detectors ("lanes") at once: lane 0 on the
+ * calling thread, the others on dedicated worker threads, and returns when all lanes have
+ * consumed the frame. Per-frame work is a volatile publish, one unpark per worker and a wait;
+ * nothing is allocated.
+ *
+ * Thread-safety: {@link #push} is called by one thread at a time (the caller holds the engine
+ * monitor) and does not return until every lane is done with the frame, so the caller may
+ * reuse the buffer afterwards. The lanes array is the engine's; an element may be replaced
+ * under the engine monitor between pushes, and the next push hands it out.
+ */
+final class LaneRunner {
+
+    private static final String TAG = "KeywordDetectionAPI";
+    private static final long MAX_WAIT_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final KeyWordsDetection[] lanes;
+    private final Thread[] workers;
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private volatile short[] frame;
+    private volatile int frameLength;
+    private volatile Thread caller;
+    private volatile boolean running = true;
+
+    LaneRunner(@NonNull KeyWordsDetection[] lanes, @NonNull String name, final int threadPriority) {
+        this.lanes = lanes;
+        this.workers = new Thread[lanes.length - 1];
+        for (int i = 1; i < lanes.length; i++) {
+            final int lane = i;
+            Thread t = new Thread(() -> workerLoop(lane, threadPriority), "kwd-lane-" + name + "-" + i);
+            t.setDaemon(true);
+            workers[i - 1] = t;
+        }
+        for (Thread t : workers) {
+            t.start();
+        }
+    }
+
+    /** Push one frame to every lane in parallel and wait for all of them. */
+    void push(@NonNull short[] pcm, int length) {
+        frame = pcm;
+        frameLength = length;
+        caller = Thread.currentThread();
+        pending.set(workers.length);
+        generation.incrementAndGet();
+        for (Thread t : workers) {
+            LockSupport.unpark(t);
+        }
+        lanes[0].pushNextFrame(pcm, length);
+        while (pending.get() > 0 && running) {
+            LockSupport.parkNanos(this, MAX_WAIT_PARK_NANOS);
+        }
+    }
+
+    /** Stop the worker threads (a push in progress completes). */
+    void close() {
+        running = false;
+        for (Thread t : workers) {
+            LockSupport.unpark(t);
+        }
+    }
+
+    private void workerLoop(int lane, int threadPriority) {
+        try {
+            Process.setThreadPriority(threadPriority);
+        } catch (Throwable t) {
+            Log.w(TAG, "setThreadPriority failed for " + Thread.currentThread().getName() + ": " + t.getMessage());
+        }
+        long seen = 0L; // generation at construction; a push may land before this thread runs
+        while (running) {
+            long g = generation.get();
+            if (g == seen) {
+                LockSupport.park(this);
+                continue;
+            }
+            seen = g;
+            try {
+                lanes[lane].pushNextFrame(frame, frameLength);
+            } catch (Throwable t) {
+                Log.w(TAG, "pushNextFrame failed on lane " + lane + ": " + t.getMessage());
+            } finally {
+                if (pending.decrementAndGet() == 0) LockSupport.unpark(caller);
+            }
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.davoice.keywordspotting;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * LatencyHistogram
+ *
+ * Fixed-size log-linear histogram of nanosecond durations, in the style of HdrHistogram:
+ * each power of two is split into {@value #SUB_BUCKETS} linear sub-buckets, so any recorded
+ * value is reported within 12.5%. Values from 0 ns up to ~18 minutes fit; larger values land
+ * in the last bucket.
+ *
+ * Thread-safety: {@link #record(long)} is lock-free and allocation-free and may be called
+ * from any thread. Snapshots read the counters without stopping writers, so a percentile may
+ * miss values recorded concurrently.
+ */
+final class LatencyHistogram {
+
+    private static final int SUB_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int MAX_MSB = 40;
+    private static final int BUCKETS = (MAX_MSB - SUB_BITS) * SUB_BUCKETS + 2 * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        counts.incrementAndGet(indexOf(nanos));
+        total.incrementAndGet();
+        sum.addAndGet(nanos);
+        long m;
+        while (nanos > (m = max.get()) && !max.compareAndSet(m, nanos)) {
+            // retry
+        }
+    }
+
+    long count() {
+        return total.get();
+    }
+
+    long maxNanos() {
+        return max.get();
+    }
+
+    long meanNanos() {
+        long n = total.get();
+        return n == 0 ? 0L : sum.get() / n;
+    }
+
+    /**
+     * Values at the given percentiles (0..100), each reported as the upper bound of its bucket
+     * (clamped to the recorded maximum). Returns zeros when nothing was recorded.
+     */
+    long[] percentiles(double... percentiles) {
+        long[] snapshot = new long[BUCKETS];
+        long n = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            n += snapshot[i];
+        }
+        long[] out = new long[percentiles.length];
+        if (n == 0) return out;
+        long maxSeen = max.get();
+        for (int p = 0; p < percentiles.length; p++) {
+            long rank = Math.max(1L, (long) Math.ceil(percentiles[p] / 100.0 * n));
+            long seen = 0;
+            int i = 0;
+            for (; i < BUCKETS - 1; i++) {
+                seen += snapshot[i];
+                if (seen >= rank) break;
+            }
+            out[p] = Math.min(upperBound(i), maxSeen);
+        }
+        return out;
+    }
+
+    void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0L);
+        }
+        total.set(0L);
+        sum.set(0L);
+        max.set(0L);
+    }
+
+    static int indexOf(long v) {
+        if (v < 2 * SUB_BUCKETS) return (int) v;
+        int msb = 63 - Long.numberOfLeadingZeros(v);
+        if (msb > MAX_MSB) return BUCKETS - 1;
+        int shift = msb - SUB_BITS;
+        return shift * SUB_BUCKETS + (int) (v >>> shift);
+    }
+
+    static long upperBound(int index) {
+        if (index < 2 * SUB_BUCKETS) return index;
+        int shift = index / SUB_BUCKETS - 1;
+        long top = (index % SUB_BUCKETS) + SUB_BUCKETS;
+        return ((top + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,218 @@
+package com.davoice.keywordspotting;
+
+import androidx.annotation.NonNull;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * MetricsRecorder
+ *
+ * Per-instance counters behind {@link KeywordDetectionAPI#getInstanceMetrics(String)}:
+ * frames handed to the detector or skipped by the voice-activity gate, time spent in
+ * pushNextFrame, detections per model and detections the wrapper suppressed, because the model
+ * is disabled or by the per-model debounce ({@code msBetweenCallbacks}).
+ *
+ * A multi-model detector debounces itself (see {@link ModelSpec#libraryDebounce()}); its table
+ * only reports the configured values, and callbacks the library withholds are not seen here.
+ * For single-model detectors and parallel lanes, which take no debounce argument, the window is
+ * applied here.
+ *
+ * Per-model parameters (debounce, enabled) and counters live in an immutable {@link Models}
+ * table. Parameter updates publish a copy that shares the counters; a model change publishes a
+ * new table in which counts and parameters of models present in both carry over by name. The
+ * detection path reads the table with one volatile read.
+ *
+ * Thread-safety: recording is lock-free and allocation-free (atomics only); the consumer
+ * thread records frames and the inference thread records detections. Table updates are made
+ * under the instance monitor.
+ */
+final class MetricsRecorder implements FrameStats {
+
+    /** Records into every instance attached to a shared engine. */
+    static final class Fanout implements FrameStats {
+        private final List<KeywordInstance> instances;
+
+        Fanout(@NonNull List<KeywordInstance> instances) {
+            this.instances = instances;
+        }
+
+        @Override
+        public void recordFrame(long nanos) {
+            for (KeywordInstance i : instances) {
+                i.metrics.recordFrame(nanos);
+            }
+        }
+
+        @Override
+        public void recordSkipped() {
+            for (KeywordInstance i : instances) {
+                i.metrics.recordSkipped();
+            }
+        }
+
+        @Override
+        public void recordPreRollFlushed(int frames) {
+            for (KeywordInstance i : instances) {
+                i.metrics.recordPreRollFlushed(frames);
+            }
+        }
+    }
+
+    private final AtomicLong framesProcessed = new AtomicLong();
+    private final AtomicLong framesSkipped = new AtomicLong();
+    private final AtomicLong suppressedCallbacks = new AtomicLong();
+    private final AtomicLong unknownDetections = new AtomicLong();
+    private final LatencyHistogram inference = new LatencyHistogram();
+    private volatile Models models;
+
+    MetricsRecorder(@NonNull ModelSpec spec) {
+        this.models = new Models(spec, null);
+    }
+
+    /** The instance's models changed (engine switch). Caller holds the instance monitor. */
+    void onSpecChanged(@NonNull ModelSpec spec) {
+        models = new Models(spec, models);
+    }
+
+    /**
+     * Publish new debounce windows and enabled flags for the given models in one table swap. If
+     * the detector debounces itself the windows are left as they are: a new debounce reaches it
+     * with a reload, via {@link #onSpecChanged}. Caller holds the instance monitor.
+     */
+    void updateParameters(@NonNull int[] indices, @NonNull long[] debounceMs, @NonNull boolean[] enabled) {
+        Models m = models;
+        long[] debounce = m.debounceNanos.clone();
+        boolean[] on = m.enabled.clone();
+        for (int k = 0; k < indices.length; k++) {
+            if (!m.libraryDebounce) debounce[indices[k]] = TimeUnit.MILLISECONDS.toNanos(Math.max(0L, debounceMs[k]));
+            on[indices[k]] = enabled[k];
+        }
+        models = new Models(m, debounce, on);
+    }
+
+    long debounceMillis(int modelIndex) {
+        return TimeUnit.NANOSECONDS.toMillis(models.debounceNanos[modelIndex]);
+    }
+
+    boolean isEnabled(int modelIndex) {
+        return models.enabled[modelIndex];
+    }
+
+    @Override
+    public void recordFrame(long nanos) {
+        framesProcessed.incrementAndGet();
+        inference.record(nanos);
+    }
+
+    @Override
+    public void recordSkipped() {
+        framesSkipped.incrementAndGet();
+    }
+
+    @Override
+    public void recordPreRollFlushed(int frames) {
+        if (frames > 0) framesSkipped.addAndGet(-frames);
+    }
+
+    /**
+     * Apply the model's enabled flag and, unless the detector debounces itself, its debounce; and
+     * count the detection.
+     *
+     * @return false if the model is disabled or the detection falls inside its msBetweenCallbacks window
+     */
+    boolean admitDetection(int modelIndex, long nowNanos) {
+        Models m = models;
+        if (modelIndex < 0 || modelIndex >= m.names.length) {
+            unknownDetections.incrementAndGet();
+            return true;
+        }
+        if (!m.enabled[modelIndex]) {
+            suppressedCallbacks.incrementAndGet();
+            return false;
+        }
+        long window = m.debounceNanos[modelIndex];
+        if (window > 0 && !m.libraryDebounce) {
+            long last = m.lastFiredNanos.get(modelIndex);
+            if (last != 0L && nowNanos - last < window) {
+                suppressedCallbacks.incrementAndGet();
+                return false;
+            }
+            m.lastFiredNanos.set(modelIndex, nowNanos);
+        }
+        m.detections.incrementAndGet(modelIndex);
+        return true;
+    }
+
+    @NonNull
+    KeywordDetectionAPI.InstanceMetrics snapshot(int queuedFrames, long droppedFrames, long droppedEvents) {
+        long[] p = inference.percentiles(50.0, 95.0, 99.0);
+        Models m = models;
+        Map<String, Long> perModel = new LinkedHashMap<>();
+        for (int i = 0; i < m.names.length; i++) {
+            perModel.put(m.names[i], m.detections.get(i));
+        }
+        long unknown = unknownDetections.get();
+        if (unknown > 0) perModel.put("", unknown);
+        return new KeywordDetectionAPI.InstanceMetrics(
+                framesProcessed.get(),
+                framesSkipped.get(),
+                p[0], p[1], p[2], inference.maxNanos(), inference.meanNanos(),
+                Collections.unmodifiableMap(perModel),
+                suppressedCallbacks.get(),
+                queuedFrames,
+                droppedFrames,
+                droppedEvents);
+    }
+
+    private static final class Models {
+        final String[] names;
+        final long[] debounceNanos;
+        final boolean[] enabled;
+        final boolean libraryDebounce;
+        final AtomicLongArray lastFiredNanos;
+        final AtomicLongArray detections;
+
+        Models(@NonNull ModelSpec spec, Models previous) {
+            int n = spec.size();
+            names = spec.modelPaths;
+            libraryDebounce = spec.libraryDebounce();
+            debounceNanos = new long[n];
+            enabled = new boolean[n];
+            lastFiredNanos = new AtomicLongArray(n);
+            detections = new AtomicLongArray(n);
+            for (int i = 0; i < n; i++) {
+                enabled[i] = true;
+                if (spec.msBetweenCallbacks != null) {
+                    debounceNanos[i] = TimeUnit.MILLISECONDS.toNanos(spec.msBetweenCallbacks[i]);
+                }
+                if (previous != null) {
+                    for (int j = 0; j < previous.names.length; j++) {
+                        if (previous.names[j].equals(names[i])) {
+                            if (!libraryDebounce) debounceNanos[i] = previous.debounceNanos[j];
+                            enabled[i] = previous.enabled[j];
+                            detections.set(i, previous.detections.get(j));
+                            lastFiredNanos.set(i, previous.lastFiredNanos.get(j));
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+
+        // Same models and counters, new parameters.
+        Models(@NonNull Models base, @NonNull long[] debounceNanos, @NonNull boolean[] enabled) {
+            this.names = base.names;
+            this.debounceNanos = debounceNanos;
+            this.enabled = enabled;
+            this.libraryDebounce = base.libraryDebounce;
+            this.lastFiredNanos = base.lastFiredNanos;
+            this.detections = base.detections;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.davoice.keywordspotting;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ModelCache
+ *
+ * Process-wide, reference-counted cache of loaded detectors keyed by model spec and session
+ * options. With sharing enabled, instances with the same models and options share one
+ * {@link SharedDetector}; it is unloaded when the last instance using it releases it.
+ *
+ * Thread-safety: the key map and reference counts are guarded by this object's monitor.
+ * Model loading happens outside it (on the entry's own monitor), so different models load in parallel.
+ */
+final class ModelCache {
+
+    private static final String TAG = "KeywordDetectionAPI";
+
+    private static final ModelCache SHARED = new ModelCache();
+
+    private final Map<Key, SharedDetector> entries = new HashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong residentBytes = new AtomicLong();
+
+    static ModelCache shared() {
+        return SHARED;
+    }
+
+    /**
+     * Returns a loaded detector for {@code spec}, holding one reference to it.
+     *
+     * @param share if false, a private detector is always created and never handed to anyone else
+     * @throws Exception if the detector cannot be created
+     */
+    @NonNull
+    SharedDetector acquire(@NonNull Context context,
+                           @NonNull ModelSpec spec,
+                           boolean fastSession,
+                           boolean share) throws Exception {
+        SharedDetector engine;
+        if (share) {
+            Key key = new Key(spec, fastSession);
+            synchronized (this) {
+                engine = entries.get(key);
+                if (engine == null) {
+                    engine = new SharedDetector(spec, fastSession, true);
+                    entries.put(key, engine);
+                }
+                engine.refs++;
+            }
+        } else {
+            engine = new SharedDetector(spec, fastSession, false);
+            engine.refs = 1;
+        }
+
+        try {
+            if (engine.ensureLoaded(context)) {
+                misses.incrementAndGet();
+                residentBytes.addAndGet(engine.residentBytes());
+            } else {
+                hits.incrementAndGet();
+            }
+        } catch (Exception e) {
+            release(engine);
+            throw e;
+        }
+        return engine;
+    }
+
+    /** Drops one reference; the last one unloads the detector. */
+    void release(@NonNull SharedDetector engine) {
+        synchronized (this) {
+            if (--engine.refs > 0) return;
+            if (engine.cached) {
+                entries.remove(new Key(engine.spec, engine.fastSession));
+            }
+        }
+        if (engine.isLoaded()) {
+            residentBytes.addAndGet(-engine.residentBytes());
+            engine.unload();
+            Log.d(TAG, "Unloaded model " + engine.spec);
+        }
+    }
+
+    /**
+     * Install a replacement lane in {@code engine} and re-file it under {@code target}. Only done
+     * while the engine serves a single reference (replacing a lane of a shared engine would
+     * change the models of other instances) and no other engine is cached under {@code target}.
+     *
+     * @return false if the engine is shared; the caller then loads a separate engine instead
+     */
+    synchronized boolean replaceLane(@NonNull SharedDetector engine,
+                                     @NonNull SharedDetector.PendingLane lane,
+                                     @NonNull ModelSpec target) throws Exception {
+        if (engine.refs != 1) return false;
+        Key to = new Key(target, engine.fastSession);
+        if (engine.cached && entries.containsKey(to)) return false;
+        Key from = new Key(engine.spec, engine.fastSession);
+        engine.installLane(lane, target);
+        residentBytes.addAndGet(lane.residentBytesDelta);
+        if (engine.cached) {
+            entries.remove(from);
+            entries.put(to, engine);
+        }
+        return true;
+    }
+
+    long hits() {
+        return hits.get();
+    }
+
+    long misses() {
+        return misses.get();
+    }
+
+    long residentBytes() {
+        return residentBytes.get();
+    }
+
+    synchronized int sharedEntryCount() {
+        return entries.size();
+    }
+
+    private static final class Key {
+        final ModelSpec spec;
+        final boolean fastSession;
+
+        Key(ModelSpec spec, boolean fastSession) {
+            this.spec = spec;
+            this.fastSession = fastSession;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return fastSession == other.fastSession && spec.equals(other.spec);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * spec.hashCode() + (fastSession ? 1 : 0);
+        }
+    }
+}
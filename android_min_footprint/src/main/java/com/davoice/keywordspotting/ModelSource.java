@@ -0,0 +1,173 @@
+package com.davoice.keywordspotting;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * ModelSource
+ *
+ * Where a keyword model (.dm) comes from:
+ *  - {@link #asset(String)}: an entry under src/main/assets (the historical string form)
+ *  - {@link #file(File)}: an absolute file, e.g. a model downloaded at runtime
+ *  - {@link #mapped(ByteBuffer, String)}: a memory-mapped or direct buffer
+ *
+ * KeyWordsDetection takes a model identifier string, so a source is resolved to one before
+ * loading: asset names and file paths are passed through unchanged and the library reads the
+ * model itself. A buffer is written to the code cache directory through a FileChannel (no Java
+ * heap copy) under a name derived from a SHA-256 of its contents, and loaded from there; the
+ * file is reused only by a buffer with the same contents.
+ *
+ * Instances are immutable; buffers are never modified (a duplicate is used for writing).
+ */
+public final class ModelSource {
+
+    public enum Kind { ASSET, FILE, MAPPED }
+
+    private static final String MATERIALIZED_DIR = "kwd-models";
+
+    private final Kind kind;
+    private final String name;
+    private final @Nullable File file;
+    private final @Nullable ByteBuffer buffer;
+
+    private ModelSource(@NonNull Kind kind,
+                        @NonNull String name,
+                        @Nullable File file,
+                        @Nullable ByteBuffer buffer) {
+        this.kind = kind;
+        this.name = name;
+        this.file = file;
+        this.buffer = buffer;
+    }
+
+    /** An asset name such as {@code "hey_lookdeep.dm"}. */
+    @NonNull
+    public static ModelSource asset(@NonNull String assetName) {
+        return new ModelSource(Kind.ASSET, assetName, null, null);
+    }
+
+    /** An absolute model file. */
+    @NonNull
+    public static ModelSource file(@NonNull File file) {
+        File abs = file.getAbsoluteFile();
+        return new ModelSource(Kind.FILE, abs.getPath(), abs, null);
+    }
+
+    /**
+     * Same as {@link #file(File)}. The library reads model files itself, so mapping one here
+     * would only add an unused mapping; kept for source compatibility.
+     *
+     * @throws IOException never; declared for source compatibility
+     */
+    @NonNull
+    public static ModelSource mapFile(@NonNull File file) throws IOException {
+        return file(file);
+    }
+
+    /**
+     * A model held in a direct or memory-mapped buffer (e.g. decoded from a download).
+     * Bytes from position to limit are the model.
+     *
+     * @param name stable identifier for the model contents; used as file name and cache identity
+     */
+    @NonNull
+    public static ModelSource mapped(@NonNull ByteBuffer buffer, @NonNull String name) {
+        return new ModelSource(Kind.MAPPED, name, null, buffer.asReadOnlyBuffer());
+    }
+
+    @NonNull
+    public Kind getKind() {
+        return kind;
+    }
+
+    /** Asset name, absolute path, or the caller-supplied name of a buffer. */
+    @NonNull
+    public String getName() {
+        return name;
+    }
+
+    /** Model size in bytes, or -1 for assets (known only after opening). */
+    public long sizeBytes() {
+        if (buffer != null) return buffer.remaining();
+        if (file != null) return file.length();
+        return -1L;
+    }
+
+    /**
+     * Resolve to the identifier handed to KeyWordsDetection. May perform file I/O for
+     * buffers not backed by a file; call off the main thread.
+     */
+    @NonNull
+    String resolve(@NonNull Context context) throws IOException {
+        if (kind == Kind.ASSET || file != null) return name;
+        return materialize(context).getPath();
+    }
+
+    private File materialize(@NonNull Context context) throws IOException {
+        ByteBuffer src = buffer.duplicate();
+        File dir = new File(context.getCodeCacheDir(), MATERIALIZED_DIR);
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create " + dir);
+        }
+        String safe = name.replaceAll("[^A-Za-z0-9._-]", "_");
+        File out = new File(dir, safe + "-" + contentHash(src.duplicate()) + ".dm");
+        if (out.isFile() && out.length() == src.remaining()) return out;
+
+        // A unique temp file per writer: concurrent loads of the same model never share one,
+        // and the rename replaces the target atomically.
+        File tmp = File.createTempFile(safe, ".tmp", dir);
+        boolean moved = false;
+        try {
+            try (FileOutputStream fos = new FileOutputStream(tmp);
+                 FileChannel ch = fos.getChannel()) {
+                while (src.hasRemaining()) {
+                    ch.write(src);
+                }
+                ch.force(false);
+            }
+            if (!tmp.renameTo(out)) {
+                throw new IOException("Cannot move model into place: " + out);
+            }
+            moved = true;
+        } finally {
+            if (!moved) {
+                //noinspection ResultOfMethodCallIgnored
+                tmp.delete();
+            }
+        }
+        return out;
+    }
+
+    /** Hex SHA-256 of the remaining bytes; consumes {@code src}. */
+    @NonNull
+    private static String contentHash(@NonNull ByteBuffer src) throws IOException {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException("SHA-256 unavailable", e);
+        }
+        md.update(src);
+        StringBuilder hex = new StringBuilder(64);
+        for (byte b : md.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return kind + ":" + name;
+    }
+}
@@ -0,0 +1,205 @@
+package com.davoice.keywordspotting;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.davoice.keywordsdetection.keywordslibrary.KeyWordsDetection;
+
+import java.util.Arrays;
+
+/**
+ * ModelSpec
+ *
+ * Immutable description of the model set behind one detector: the arguments that were passed
+ * to the single- or multi-model KeyWordsDetection constructor. Kept so a detector can be
+ * rebuilt (e.g. with different session options) without the caller re-supplying them.
+ *
+ * A parallel multi-model spec is loaded as one single-model detector per model ("lanes"),
+ * run side by side on separate threads; see {@link LaneRunner}.
+ *
+ * msBetweenCallbacks is passed to the multi-model detector, which debounces itself, so for such
+ * specs it is part of equals/hashCode: detectors with different debounces are not shared. The
+ * single-model constructor takes no debounce; for single-model specs and parallel lanes the
+ * wrapper applies it instead (see {@link MetricsRecorder}) and it is left out of the key.
+ */
+final class ModelSpec {
+
+    final boolean multi;
+    final String[] modelPaths;
+    final float[] thresholds;
+    final int[] bufferCnts;
+    final long[] msBetweenCallbacks; // null for single-model specs
+    final boolean parallel;
+
+    private ModelSpec(boolean multi,
+                      String[] modelPaths,
+                      float[] thresholds,
+                      int[] bufferCnts,
+                      long[] msBetweenCallbacks,
+                      boolean parallel) {
+        this.multi = multi;
+        this.parallel = parallel;
+        this.modelPaths = modelPaths;
+        this.thresholds = thresholds;
+        this.bufferCnts = bufferCnts;
+        this.msBetweenCallbacks = msBetweenCallbacks;
+    }
+
+    static ModelSpec single(@NonNull String modelName, float threshold, int bufferCnt) {
+        return new ModelSpec(false,
+                new String[]{modelName},
+                new float[]{threshold},
+                new int[]{bufferCnt},
+                null,
+                false);
+    }
+
+    static ModelSpec multi(@NonNull String[] modelPaths,
+                           @NonNull float[] thresholds,
+                           @NonNull int[] bufferCnts,
+                           @NonNull long[] msBetweenCallbacks) {
+        return new ModelSpec(true,
+                modelPaths.clone(),
+                thresholds.clone(),
+                bufferCnts.clone(),
+                msBetweenCallbacks.clone(),
+                false);
+    }
+
+    /** This spec with one lane per model (parallel) or one multi-model detector. Single-model specs are unchanged. */
+    @NonNull
+    ModelSpec withParallel(boolean parallel) {
+        if (!multi || parallel == this.parallel) return this;
+        return new ModelSpec(true, modelPaths, thresholds, bufferCnts, msBetweenCallbacks, parallel);
+    }
+
+    /** This spec with model {@code index} replaced; the other models and options are kept. */
+    @NonNull
+    ModelSpec withModel(int index, @NonNull String modelPath, float threshold, int bufferCnt) {
+        if (index < 0 || index >= modelPaths.length) {
+            throw new IllegalArgumentException("Model index " + index + " out of range for " + this);
+        }
+        String[] paths = modelPaths.clone();
+        float[] thr = thresholds.clone();
+        int[] bufs = bufferCnts.clone();
+        paths[index] = modelPath;
+        thr[index] = threshold;
+        bufs[index] = bufferCnt;
+        return new ModelSpec(multi, paths, thr, bufs, msBetweenCallbacks, parallel);
+    }
+
+    /** This spec with the debounce of model {@code index} changed. Single-model specs are unchanged. */
+    @NonNull
+    ModelSpec withDebounce(int index, long msBetweenCallbacks) {
+        if (index < 0 || index >= modelPaths.length) {
+            throw new IllegalArgumentException("Model index " + index + " out of range for " + this);
+        }
+        if (this.msBetweenCallbacks == null || this.msBetweenCallbacks[index] == msBetweenCallbacks) return this;
+        long[] ms = this.msBetweenCallbacks.clone();
+        ms[index] = msBetweenCallbacks;
+        return new ModelSpec(multi, modelPaths, thresholds, bufferCnts, ms, parallel);
+    }
+
+    /** True if the detector applies msBetweenCallbacks itself (one multi-model detector). */
+    boolean libraryDebounce() {
+        return multi && !parallel;
+    }
+
+    /** The one lane in which {@code other} differs from this parallel spec, or -1 if not exactly one. */
+    int changedLane(@NonNull ModelSpec other) {
+        if (!parallel || !other.parallel || other.size() != size()) return -1;
+        int changed = -1;
+        for (int i = 0; i < modelPaths.length; i++) {
+            if (modelPaths[i].equals(other.modelPaths[i])
+                    && thresholds[i] == other.thresholds[i]
+                    && bufferCnts[i] == other.bufferCnts[i]) {
+                continue;
+            }
+            if (changed >= 0) return -1;
+            changed = i;
+        }
+        return changed;
+    }
+
+    /** Number of detectors this spec loads. */
+    int laneCount() {
+        return parallel ? modelPaths.length : 1;
+    }
+
+    int size() {
+        return modelPaths.length;
+    }
+
+    /**
+     * Index of the model the library reported as {@code modelName}, or -1. The library may
+     * report either the path it was given or its bare file name, with or without extension.
+     */
+    int indexOf(@NonNull String modelName) {
+        for (int i = 0; i < modelPaths.length; i++) {
+            if (modelPaths[i].equals(modelName)) return i;
+        }
+        for (int i = 0; i < modelPaths.length; i++) {
+            if (namesMatch(modelPaths[i], modelName)) return i;
+        }
+        return -1;
+    }
+
+    // Compares the last path segment of path, minus its extension, against name minus its extension.
+    private static boolean namesMatch(@NonNull String path, @NonNull String name) {
+        int start = Math.max(path.lastIndexOf('/'), path.lastIndexOf('\\')) + 1;
+        int end = path.lastIndexOf('.');
+        if (end <= start) end = path.length();
+        int nameEnd = name.lastIndexOf('.');
+        if (nameEnd <= name.lastIndexOf('/')) nameEnd = name.length();
+        int nameStart = name.lastIndexOf('/') + 1;
+        int len = end - start;
+        return nameEnd - nameStart == len && path.regionMatches(start, name, nameStart, len);
+    }
+
+    /**
+     * Construct (but do not initialize) a detector for this spec. A multi-model detector gets the
+     * configured msBetweenCallbacks; lanes and single-model detectors have no debounce argument.
+     */
+    @NonNull
+    KeyWordsDetection newDetector(@Nullable Context context, boolean fastSession, int lane) throws Exception {
+        if (parallel) {
+            return new KeyWordsDetection(context, modelPaths[lane], thresholds[lane], bufferCnts[lane], fastSession);
+        }
+        if (multi) {
+            return new KeyWordsDetection(context, modelPaths, thresholds, bufferCnts, msBetweenCallbacks, fastSession);
+        }
+        return new KeyWordsDetection(context, modelPaths[0], thresholds[0], bufferCnts[0], fastSession);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ModelSpec)) return false;
+        ModelSpec other = (ModelSpec) o;
+        return multi == other.multi
+                && parallel == other.parallel
+                && Arrays.equals(modelPaths, other.modelPaths)
+                && Arrays.equals(thresholds, other.thresholds)
+                && Arrays.equals(bufferCnts, other.bufferCnts)
+                && (!libraryDebounce() || Arrays.equals(msBetweenCallbacks, other.msBetweenCallbacks));
+    }
+
+    @Override
+    public int hashCode() {
+        int h = multi ? 1 : 0;
+        h = 31 * h + Arrays.hashCode(modelPaths);
+        h = 31 * h + Arrays.hashCode(thresholds);
+        h = 31 * h + Arrays.hashCode(bufferCnts);
+        h = 31 * h + (parallel ? 1 : 0);
+        if (libraryDebounce()) h = 31 * h + Arrays.hashCode(msBetweenCallbacks);
+        return h;
+    }
+
+    @Override
+    public String toString() {
+        if (!multi) return modelPaths[0];
+        return (parallel ? "parallel models=" : "models=") + Arrays.toString(modelPaths);
+    }
+}
@@ -0,0 +1,144 @@
+package com.davoice.keywordspotting;
+
+import androidx.annotation.NonNull;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * PcmFileReader
+ *
+ * Reads 16 kHz mono PCM16 samples from a WAV file or a headerless little-endian .pcm/.raw file
+ * through memory-mapped windows, so a long recording is streamed by the page cache rather than
+ * copied through read buffers, and files larger than one mapping (2 GB) work.
+ *
+ * Thread-safety: one thread per reader.
+ */
+final class PcmFileReader implements Closeable {
+
+    /** Bytes mapped at a time (a multiple of the sample size). */
+    private static final int WINDOW_BYTES = 8 * 1024 * 1024;
+
+    private final RandomAccessFile raf;
+    private final FileChannel channel;
+    private final long dataOffset;
+    private final long dataBytes;
+    private long windowStart; // offset of the current window within the data
+    private ShortBuffer window = ShortBuffer.allocate(0);
+
+    private PcmFileReader(@NonNull RandomAccessFile raf, long dataOffset, long dataBytes) {
+        this.raf = raf;
+        this.channel = raf.getChannel();
+        this.dataOffset = dataOffset;
+        this.dataBytes = dataBytes & ~1L;
+    }
+
+    /**
+     * Open {@code file}. A RIFF/WAVE header is parsed and must describe 16 kHz mono PCM16;
+     * any other file is read as raw 16 kHz mono PCM16.
+     *
+     * @throws IOException if the file cannot be read or has an unsupported WAV format
+     */
+    @NonNull
+    static PcmFileReader open(@NonNull File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel ch = raf.getChannel();
+            long size = ch.size();
+            ByteBuffer head = read(ch, 0L, 12);
+            if (head == null || head.getInt(0) != fourCc("RIFF") || head.getInt(8) != fourCc("WAVE")) {
+                return new PcmFileReader(raf, 0L, size);
+            }
+            boolean format = false;
+            long pos = 12L;
+            while (pos + 8 <= size) {
+                ByteBuffer chunk = read(ch, pos, 8);
+                if (chunk == null) break;
+                int id = chunk.getInt(0);
+                long len = chunk.getInt(4) & 0xFFFFFFFFL;
+                if (id == fourCc("fmt ")) {
+                    ByteBuffer fmt = read(ch, pos + 8, 16);
+                    if (fmt == null) throw new EOFException("Truncated fmt chunk in " + file);
+                    int audioFormat = fmt.getShort(0) & 0xFFFF;
+                    int channels = fmt.getShort(2);
+                    int rate = fmt.getInt(4);
+                    int bits = fmt.getShort(14);
+                    if ((audioFormat != 1 && audioFormat != 0xFFFE) || channels != 1
+                            || rate != AudioCaptureHub.SAMPLE_RATE || bits != 16) {
+                        throw new IOException("Unsupported WAV format in " + file + " (format=" + audioFormat
+                                + ", channels=" + channels + ", rate=" + rate + ", bits=" + bits
+                                + "); need 16 kHz mono PCM16");
+                    }
+                    format = true;
+                } else if (id == fourCc("data")) {
+                    if (!format) throw new IOException("WAV data before fmt chunk in " + file);
+                    long start = pos + 8;
+                    // Streamed writers leave 0 or 0xFFFFFFFF in the size; take the rest of the file.
+                    long avail = size - start;
+                    long bytes = len == 0L || len == 0xFFFFFFFFL ? avail : Math.min(len, avail);
+                    return new PcmFileReader(raf, start, bytes);
+                }
+                pos += 8 + len + (len & 1L);
+            }
+            throw new IOException("No data chunk in " + file);
+        } catch (IOException | RuntimeException e) {
+            raf.close();
+            throw e;
+        }
+    }
+
+    /** Total samples in the file. */
+    long totalSamples() {
+        return dataBytes / 2;
+    }
+
+    /**
+     * Read up to {@code length} samples into {@code out}.
+     *
+     * @return samples read, or -1 at the end of the data
+     */
+    int read(@NonNull short[] out, int length) throws IOException {
+        int done = 0;
+        while (done < length) {
+            if (!window.hasRemaining()) {
+                long next = windowStart + window.capacity() * 2L;
+                if (next >= dataBytes) break;
+                long len = Math.min(WINDOW_BYTES, dataBytes - next);
+                window = channel.map(FileChannel.MapMode.READ_ONLY, dataOffset + next, len)
+                        .order(ByteOrder.LITTLE_ENDIAN)
+                        .asShortBuffer();
+                windowStart = next;
+            }
+            int n = Math.min(length - done, window.remaining());
+            window.get(out, done, n);
+            done += n;
+        }
+        return done == 0 && length > 0 ? -1 : done;
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = ShortBuffer.allocate(0); // drop the mapping reference
+        raf.close();
+    }
+
+    private static ByteBuffer read(@NonNull FileChannel ch, long pos, int len) throws IOException {
+        ByteBuffer b = ByteBuffer.allocate(len).order(ByteOrder.LITTLE_ENDIAN);
+        while (b.hasRemaining()) {
+            if (ch.read(b, pos + b.position()) < 0) return null;
+        }
+        return b;
+    }
+
+    // Little-endian int value of a chunk id.
+    private static int fourCc(@NonNull String id) {
+        return id.charAt(0) | id.charAt(1) << 8 | id.charAt(2) << 16 | id.charAt(3) << 24;
+    }
+}
@@ -0,0 +1,216 @@
+package com.davoice.keywordspotting;
+
+import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * PcmFrameRing
+ *
+ * Bounded multi-producer / single-consumer ring of PCM16 frames.
+ * Slots are preallocated and reused, so steady-state pushes do not allocate.
+ *
+ * A producer reserves a slot with a CAS on {@code head}, fills it, then publishes it by writing
+ * the slot's sequence number; the consumer only reads a slot whose sequence says it is complete.
+ * With a single producer the CAS never fails, so that path costs one uncontended CAS per frame.
+ *
+ * When the ring is full a non-blocking offer drops the frame and counts an overrun; a blocking
+ * offer instead parks briefly and retries until the consumer frees a slot, so no audio is lost.
+ *
+ * Thread-safety: any number of threads may call {@link #offer}; exactly one consumer thread may
+ * call {@link #peek}/{@link #release}/{@link #await}. No monitors are used.
+ */
+final class PcmFrameRing {
+
+    /** How long a waiting consumer parks before re-checking (guards against a missed unpark). */
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+
+    /** How long a blocked producer parks before re-checking for a free slot. */
+    private static final long PRODUCER_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+
+    private final short[][] slots;
+    private final int[] lengths;
+    private final long[] captureNanos;
+    private final AtomicLongArray published; // slot i holds frame n once published[i] == n + 1
+    private final int mask;
+
+    private final AtomicLong head = new AtomicLong(); // next slot a producer reserves
+    private final AtomicLong tail = new AtomicLong(); // next slot the consumer reads
+    private final AtomicLong overruns = new AtomicLong();
+
+    private volatile Thread waiter;
+    private volatile boolean closed;
+
+    /**
+     * @param capacity     number of frames (rounded up to a power of two)
+     * @param frameSamples initial samples per slot; a slot grows once if a larger frame arrives
+     */
+    PcmFrameRing(int capacity, int frameSamples) {
+        int cap = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.slots = new short[cap][];
+        this.lengths = new int[cap];
+        this.captureNanos = new long[cap];
+        this.published = new AtomicLongArray(cap);
+        this.mask = cap - 1;
+        for (int i = 0; i < cap; i++) {
+            slots[i] = new short[frameSamples];
+        }
+    }
+
+    int capacity() {
+        return slots.length;
+    }
+
+    /**
+     * Producer side: copy one frame into the ring.
+     *
+     * @param captureTimeNanos {@link System#nanoTime()} at which the frame was captured
+     * @param block            wait for a free slot instead of dropping the frame
+     * @return false if the frame was dropped (counted as an overrun): the ring was full and
+     *         {@code block} was false, or the ring was closed or the thread interrupted while waiting
+     */
+    boolean offer(short[] pcm, int offset, int length, long captureTimeNanos, boolean block) {
+        checkRange(offset, length, pcm.length);
+        long h = claim(block);
+        if (h < 0) return false;
+        short[] slot = reserved(h, length);
+        System.arraycopy(pcm, offset, slot, 0, length);
+        publish(h, length, captureTimeNanos);
+        return true;
+    }
+
+    /**
+     * Producer side: copy {@code length} samples starting at absolute index {@code offset}.
+     * The buffer's position and limit are not modified.
+     */
+    boolean offer(ShortBuffer pcm, int offset, int length, long captureTimeNanos, boolean block) {
+        checkRange(offset, length, pcm.limit());
+        long h = claim(block);
+        if (h < 0) return false;
+        short[] slot = reserved(h, length);
+        if (pcm.hasArray()) {
+            System.arraycopy(pcm.array(), pcm.arrayOffset() + offset, slot, 0, length);
+        } else {
+            // Bulk get on a view: one native copy for direct buffers instead of a get() per sample.
+            ShortBuffer view = pcm.duplicate();
+            view.position(offset);
+            view.get(slot, 0, length);
+        }
+        publish(h, length, captureTimeNanos);
+        return true;
+    }
+
+    /**
+     * Producer side: copy {@code length} PCM16 samples starting at absolute byte index
+     * {@code byteOffset}, decoded in the buffer's byte order. Position and limit are not modified.
+     */
+    boolean offer(ByteBuffer pcm, int byteOffset, int length, long captureTimeNanos, boolean block) {
+        checkRange(byteOffset, length << 1, pcm.limit());
+        long h = claim(block);
+        if (h < 0) return false;
+        short[] slot = reserved(h, length);
+        ByteBuffer view = pcm.duplicate().order(pcm.order()); // duplicate() resets the order
+        view.position(byteOffset);
+        view.asShortBuffer().get(slot, 0, length);
+        publish(h, length, captureTimeNanos);
+        return true;
+    }
+
+    // A reserved slot must be published, so bad ranges are rejected before reserving.
+    private static void checkRange(int offset, int length, int limit) {
+        if (offset < 0 || length < 0 || offset > limit - length) {
+            throw new IndexOutOfBoundsException("offset " + offset + ", length " + length + ", limit " + limit);
+        }
+    }
+
+    /**
+     * Reserves the next frame number, or returns -1 if the ring is full (and {@code block} is
+     * false), closed, or the waiting thread was interrupted.
+     */
+    private long claim(boolean block) {
+        while (true) {
+            long h = head.get();
+            if (h - tail.get() >= slots.length) {
+                if (!block || closed || Thread.currentThread().isInterrupted()) {
+                    overruns.incrementAndGet();
+                    return -1L;
+                }
+                LockSupport.parkNanos(this, PRODUCER_PARK_NANOS);
+                continue;
+            }
+            if (head.compareAndSet(h, h + 1)) return h;
+        }
+    }
+
+    /** The reserved frame's slot, grown if needed; owned by the reserving producer until published. */
+    private short[] reserved(long h, int length) {
+        int i = (int) (h & mask);
+        short[] slot = slots[i];
+        if (slot.length < length) {
+            slot = new short[length];
+            slots[i] = slot;
+        }
+        return slot;
+    }
+
+    private void publish(long h, int length, long captureTimeNanos) {
+        int i = (int) (h & mask);
+        lengths[i] = length;
+        captureNanos[i] = captureTimeNanos;
+        published.set(i, h + 1);
+        Thread w = waiter;
+        if (w != null) LockSupport.unpark(w);
+    }
+
+    /** Consumer side: index of the oldest queued frame, or -1 if none is published yet. */
+    int peek() {
+        long t = tail.get();
+        int i = (int) (t & mask);
+        if (published.get(i) != t + 1) return -1;
+        return i;
+    }
+
+    short[] slot(int index) {
+        return slots[index];
+    }
+
+    int length(int index) {
+        return lengths[index];
+    }
+
+    long captureNanos(int index) {
+        return captureNanos[index];
+    }
+
+    /** Consumer side: hand the slot returned by {@link #peek()} back to the producer. */
+    void release() {
+        tail.lazySet(tail.get() + 1);
+    }
+
+    /** Consumer side: park until a frame is queued, the thread is interrupted, or a short timeout. */
+    void await() {
+        waiter = Thread.currentThread();
+        if (peek() < 0) {
+            LockSupport.parkNanos(this, MAX_PARK_NANOS);
+        }
+        waiter = null;
+    }
+
+    /** Release producers blocked on a full ring; their frames are dropped. */
+    void close() {
+        closed = true;
+    }
+
+    /** Frames currently queued. */
+    int size() {
+        return (int) (head.get() - tail.get());
+    }
+
+    /** Frames dropped because the consumer fell behind (or the ring closed under a blocked producer). */
+    long overrunCount() {
+        return overruns.get();
+    }
+}
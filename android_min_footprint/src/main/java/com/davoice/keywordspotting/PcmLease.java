@@ -0,0 +1,99 @@
+package com.davoice.keywordspotting;
+
+import androidx.annotation.NonNull;
+
+import java.nio.ShortBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * PcmLease
+ *
+ * A window of 16 kHz PCM16 audio an instance was fed, copied out of its history into a pooled
+ * array. Obtain it from {@link KeywordDetectionAPI#leaseDetectionAudio} and close it when done
+ * (try-with-resources); the array goes back to a small process-wide pool, so steady use does
+ * not allocate.
+ *
+ * Thread-safety: a lease is owned by one thread at a time. Closing twice is harmless; using a
+ * closed lease throws IllegalStateException.
+ */
+public final class PcmLease implements AutoCloseable {
+
+    /** Longest window a lease holds (the audio history is about 2.5 s). */
+    public static final int MAX_WINDOW_MS = 2500;
+    static final int MAX_SAMPLES = MAX_WINDOW_MS * (AudioCaptureHub.SAMPLE_RATE / 1000);
+
+    private static final ArrayBlockingQueue<short[]> FREE = new ArrayBlockingQueue<>(4);
+
+    private short[] samples;
+    private final int length;
+    private final long endCaptureTimeNanos;
+
+    private PcmLease(@NonNull short[] samples, int length, long endCaptureTimeNanos) {
+        this.samples = samples;
+        this.length = length;
+        this.endCaptureTimeNanos = endCaptureTimeNanos;
+    }
+
+    /** Fill a pooled array from {@code instance}'s history; the lease may be empty. */
+    @NonNull
+    static PcmLease copyFrom(@NonNull KeywordInstance instance, long endCaptureNanos, int windowMs) {
+        short[] buf = FREE.poll();
+        if (buf == null) buf = new short[MAX_SAMPLES];
+        int want = Math.min(MAX_SAMPLES, Math.max(0, windowMs) * (AudioCaptureHub.SAMPLE_RATE / 1000));
+        int n = instance.copyAudio(endCaptureNanos, buf, want);
+        return new PcmLease(buf, n, endCaptureNanos);
+    }
+
+    /** Samples held; 0 if the requested audio was not available. */
+    public int length() {
+        return length;
+    }
+
+    public boolean isEmpty() {
+        return length == 0;
+    }
+
+    /** The capture time the window was requested to end at ({@link Long#MAX_VALUE} = most recent). */
+    public long getEndCaptureTimeNanos() {
+        return endCaptureTimeNanos;
+    }
+
+    /** Read-only view of the samples, oldest first; valid until {@link #close()}. */
+    @NonNull
+    public ShortBuffer asShortBuffer() {
+        return ShortBuffer.wrap(open(), 0, length).asReadOnlyBuffer();
+    }
+
+    /**
+     * The pooled backing array, for APIs that take {@code (short[], length)}. Only the first
+     * {@link #length()} samples are valid. Do not modify it or keep it after {@link #close()}.
+     */
+    @NonNull
+    public short[] array() {
+        return open();
+    }
+
+    /** Copy the samples into {@code dst} at {@code offset}. */
+    public void copyTo(@NonNull short[] dst, int offset) {
+        System.arraycopy(open(), 0, dst, offset, length);
+    }
+
+    /** Queue the samples on an async WAV writer. */
+    public boolean writeTo(@NonNull WavStreamWriter writer) {
+        return writer.write(open(), 0, length);
+    }
+
+    @Override
+    public void close() {
+        short[] s = samples;
+        if (s == null) return;
+        samples = null;
+        FREE.offer(s);
+    }
+
+    private short[] open() {
+        short[] s = samples;
+        if (s == null) throw new IllegalStateException("PcmLease already closed");
+        return s;
+    }
+}
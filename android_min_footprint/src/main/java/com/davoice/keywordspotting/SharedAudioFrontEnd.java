@@ -0,0 +1,115 @@
+package com.davoice.keywordspotting;
+
+import androidx.annotation.NonNull;
+
+import com.davoice.keywordspotting.KeywordDetectionAPI.LatencyProfile;
+
+/**
+ * SharedAudioFrontEnd
+ *
+ * Public view of the process-wide capture front end that keyword detection uses in shared
+ * capture mode, so other pipelines (speaker ID in particular) consume the same hops instead of
+ * opening a second recorder and framing the audio again.
+ *
+ * Each hop ({@link #HOP_SAMPLES} samples of 16 kHz PCM16) is captured once, stamped, and its
+ * energy computed once; every subscriber and every keyword engine reads it from one broadcast
+ * ring. The ring also serves as history: {@link #copyRecent} returns the last couple of seconds,
+ * which is the audio that contained a wake word just detected.
+ *
+ * The detectors featurize PCM internally, so what is shared is capture, framing, timestamps and
+ * the energy feature; spectral features are still computed inside each library.
+ *
+ * Thread-safety: all methods may be called from any thread.
+ */
+public final class SharedAudioFrontEnd {
+
+    public static final int SAMPLE_RATE = AudioCaptureHub.SAMPLE_RATE;
+    public static final int HOP_SAMPLES = AudioCaptureHub.FRAME_SAMPLES;
+
+    /** Receives every captured hop on the subscription's own thread. */
+    public interface HopListener {
+        /**
+         * @param pcm        hop samples; valid only during the call
+         * @param hopIndex   sequence number of the hop since the process started capturing
+         * @param energyDbfs hop energy in dB relative to full scale
+         */
+        void onHop(@NonNull short[] pcm, int length, long hopIndex, long captureTimeNanos, float energyDbfs);
+    }
+
+    /** An active subscription; closing it stops delivery (capture stops with the last subscriber). */
+    public static final class Tap implements AutoCloseable {
+        private final AudioCaptureHub.Subscription subscription;
+
+        private Tap(@NonNull AudioCaptureHub.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        /** Hops this subscriber skipped because its listener fell behind capture. */
+        public long getLostHops() {
+            return subscription.lostFrames();
+        }
+
+        @Override
+        public void close() {
+            AudioCaptureHub.shared().unsubscribe(subscription);
+        }
+    }
+
+    private static final double FULL_SCALE_SQUARED = 32768.0 * 32768.0;
+
+    private SharedAudioFrontEnd() {
+    }
+
+    /**
+     * Start receiving hops captured from now on, starting capture if needed. Requires
+     * RECORD_AUDIO.
+     *
+     * @throws IllegalStateException if capture cannot be started
+     */
+    @NonNull
+    public static Tap subscribe(@NonNull String name, @NonNull final HopListener listener) {
+        return new Tap(AudioCaptureHub.shared().subscribe(name, LatencyProfile.BALANCED.threadPriority,
+                (pcm, length, frameIndex, captureNanos, energy) ->
+                        listener.onHop(pcm, length, frameIndex, captureNanos, toDbfs(energy))));
+    }
+
+    /** True while the shared recorder runs (some keyword engine or tap is subscribed). */
+    public static boolean isRunning() {
+        return AudioCaptureHub.shared().isRecording();
+    }
+
+    /** Hops captured since the process started. */
+    public static long getHopCount() {
+        return AudioCaptureHub.shared().capturedFrames();
+    }
+
+    /** Longest history {@link #copyRecent} can return, in samples (about 2.4 s). */
+    public static int getMaxHistorySamples() {
+        return AudioCaptureHub.shared().historySamples();
+    }
+
+    /**
+     * Copy the most recent {@code samples} captured samples into {@code out}, oldest first.
+     * Copies fewer when less history is available.
+     *
+     * @return the number of samples copied (0 if nothing has been captured)
+     */
+    public static int copyRecent(@NonNull short[] out, int samples) {
+        return AudioCaptureHub.shared().readWindow(out, samples, Long.MAX_VALUE);
+    }
+
+    /**
+     * Like {@link #copyRecent}, but the copy ends with the hop captured at {@code captureTimeNanos}
+     * (e.g. {@link DetectionEvent#getCaptureTimeNanos()}), not the newest one.
+     *
+     * @return the number of samples copied (0 if that hop has already left the history)
+     */
+    public static int copyEndingAt(long captureTimeNanos, @NonNull short[] out, int samples) {
+        return AudioCaptureHub.shared().readWindow(out, samples, captureTimeNanos);
+    }
+
+    static float toDbfs(long meanSquare) {
+        if (meanSquare <= 0) return -96f;
+        return (float) (10.0 * Math.log10(meanSquare / FULL_SCALE_SQUARED));
+    }
+}
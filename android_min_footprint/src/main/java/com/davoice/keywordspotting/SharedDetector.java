@@ -0,0 +1,460 @@
+package com.davoice.keywordspotting;
+
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.davoice.keywordsdetection.keywordslibrary.KeyWordsDetection;
+import com.davoice.keywordspotting.KeywordDetectionAPI.LatencyProfile;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import ai.onnxruntime.OrtException;
+
+/**
+ * SharedDetector
+ *
+ * One loaded KeyWordsDetection (models + ORT session) that may back several
+ * {@link KeywordInstance}s. Entries are handed out and reference-counted by {@link ModelCache}.
+ * The library keeps streaming state inside the detector, so instances can only listen on one
+ * engine together when they hear the same audio the same way: the engine's own source (library
+ * microphone or shared capture), in one mode, at one threshold. External audio is always one
+ * instance's own stream. {@link #tryAcquireListening} enforces this; an instance it refuses moves
+ * to a private engine. Listening and the foreground service are reference-counted, so one
+ * instance stopping does not stop the engine under another. Detections fan out to every attached
+ * instance (instances that are not listening ignore them).
+ * In {@link KeywordInstance.ListenMode#CAPTURE_HUB} mode the engine holds one subscription to
+ * the shared capture hub for all of its instances.
+ *
+ * A parallel spec loads one detector per model; frames go to all of them at once through a
+ * {@link LaneRunner}, and control calls (listening, license) go to each. The foreground service
+ * and the recording are those of the first lane. One lane can be replaced in place
+ * ({@link #loadLane} then {@link #installLane}) while the others keep running.
+ *
+ * Thread-safety: this object's monitor guards the detector, including per-frame pushes.
+ * Lock order is instance -> engine; never take an instance lock while holding this one.
+ */
+final class SharedDetector {
+
+    private static final String TAG = "KeywordDetectionAPI";
+
+    /** Silence frames pushed by {@link #warmUp()}. */
+    private static final int WARMUP_FRAMES = 4;
+    private static final int WARMUP_FRAME_SAMPLES = 1280;
+
+    /** Changes only when a lane is replaced in place, under the {@link ModelCache} monitor. */
+    volatile ModelSpec spec;
+    final boolean fastSession;
+    final boolean cached;
+
+    int refs; // guarded by ModelCache
+
+    private KeyWordsDetection detector;      // lane 0
+    private KeyWordsDetection[] lanes;      // all lanes (length 1 unless parallel)
+    private LaneRunner laneRunner;          // null unless parallel
+    private long residentBytes;
+    private final List<KeywordInstance> attached = new CopyOnWriteArrayList<>();
+
+    // Guarded by this.
+    private KeywordInstance.ListenMode listenMode = KeywordInstance.ListenMode.NONE;
+    private int listenRefs;
+    private float listenThreshold;
+    private int foregroundRefs;
+    private String licenseKey;
+    private boolean warmedUp;
+    private volatile AudioCaptureHub.Subscription capture; // written under this
+    private final AtomicLong captureLost = new AtomicLong();
+    // Used only by the capture subscription thread.
+    private final VadGate captureGate = new VadGate();
+    private final MetricsRecorder.Fanout captureMetrics = new MetricsRecorder.Fanout(attached);
+    private volatile boolean suppressDispatch;
+
+    SharedDetector(@NonNull ModelSpec spec, boolean fastSession, boolean cached) {
+        this.spec = spec;
+        this.fastSession = fastSession;
+        this.cached = cached;
+    }
+
+    /**
+     * Loads the detector on first call; concurrent callers for the same entry wait for one load.
+     *
+     * @return true if this call performed the load
+     */
+    synchronized boolean ensureLoaded(@NonNull Context context) throws Exception {
+        if (detector != null) return false;
+        KeyWordsDetection[] loaded = new KeyWordsDetection[spec.laneCount()];
+        for (int i = 0; i < loaded.length; i++) {
+            KeyWordsDetection d = spec.newDetector(context, fastSession, i);
+            d.initialize((detected, modelFromCallback) -> {
+                if (detected) dispatch(modelFromCallback);
+            });
+            loaded[i] = d;
+        }
+        if (loaded.length > 1) {
+            int priority = (fastSession ? LatencyProfile.LOW_LATENCY : LatencyProfile.BALANCED).threadPriority;
+            laneRunner = new LaneRunner(loaded, Integer.toHexString(System.identityHashCode(this)), priority);
+        }
+        lanes = loaded;
+        detector = loaded[0];
+        residentBytes = estimateModelBytes(context, spec);
+        return true;
+    }
+
+    /**
+     * Run a few frames of silence through the session so the first real frame does not pay
+     * ORT first-run cost. No-op if already warm or currently listening.
+     */
+    synchronized void warmUp() throws OrtException {
+        if (warmedUp || listenRefs > 0) return;
+        short[] silence = new short[WARMUP_FRAME_SAMPLES];
+        suppressDispatch = true;
+        try {
+            startExternal(1.0f);
+            for (int i = 0; i < WARMUP_FRAMES; i++) {
+                pushFrame(silence, silence.length);
+            }
+        } finally {
+            stopLanes();
+            suppressDispatch = false;
+        }
+        warmedUp = true;
+    }
+
+    synchronized boolean isLoaded() {
+        return detector != null;
+    }
+
+    long residentBytes() {
+        return residentBytes;
+    }
+
+    /** The loaded detector (the first lane of a parallel spec). Callers hold this monitor while using it. */
+    @NonNull
+    KeyWordsDetection detector() {
+        return detector;
+    }
+
+    void attach(@NonNull KeywordInstance instance) {
+        attached.add(instance);
+    }
+
+    void detach(@NonNull KeywordInstance instance) {
+        attached.remove(instance);
+    }
+
+    int attachedCount() {
+        return attached.size();
+    }
+
+    synchronized boolean setLicenseKey(@NonNull String key) {
+        if (key.equals(licenseKey)) return true;
+        boolean ok = true;
+        for (KeyWordsDetection lane : lanes) {
+            ok &= lane.setLicenseKey(key);
+        }
+        if (ok) licenseKey = key;
+        return ok;
+    }
+
+    /**
+     * Start listening on behalf of one instance.
+     *
+     * @throws IllegalStateException if the engine already listens for another instance in a way
+     *                               this one cannot share (see {@link #tryAcquireListening})
+     */
+    synchronized void acquireListening(@NonNull KeywordInstance.ListenMode mode,
+                                       float threshold,
+                                       @NonNull LatencyProfile profile) throws OrtException {
+        if (!tryAcquireListening(mode, threshold, profile)) {
+            throw new IllegalStateException("Model " + spec + " already listens in " + listenMode
+                    + " mode at threshold " + listenThreshold + "; cannot share it in " + mode
+                    + " mode at threshold " + threshold);
+        }
+    }
+
+    /**
+     * Start listening on behalf of one instance. The first caller starts the engine with its mode
+     * and threshold; a later caller joins only with the same mode and threshold and a source the
+     * engine owns (not {@link KeywordInstance.ListenMode#EXTERNAL}).
+     *
+     * @return false (nothing changed) if the engine listens in a way this caller cannot share
+     */
+    synchronized boolean tryAcquireListening(@NonNull KeywordInstance.ListenMode mode,
+                                             float threshold,
+                                             @NonNull LatencyProfile profile) throws OrtException {
+        if (listenRefs > 0) {
+            if (!canJoinListening(mode, threshold)) return false;
+            listenRefs++;
+            return true;
+        }
+        if (mode == KeywordInstance.ListenMode.MICROPHONE) {
+            if (laneRunner != null) {
+                throw new IllegalStateException("Parallel models " + spec
+                        + " need external audio or shared capture, not per-detector microphones");
+            }
+            detector.startListening(threshold);
+        } else {
+            startExternal(threshold);
+        }
+        if (mode == KeywordInstance.ListenMode.CAPTURE_HUB) {
+            try {
+                capture = AudioCaptureHub.shared().subscribe(spec.toString(), profile.threadPriority, this::onCapturedFrame);
+            } catch (RuntimeException e) {
+                stopLanes();
+                throw e;
+            }
+        }
+        listenMode = mode;
+        listenThreshold = threshold;
+        listenRefs = 1;
+        return true;
+    }
+
+    /** True if a caller could listen in {@code mode} at {@code threshold} now (see {@link #tryAcquireListening}). */
+    synchronized boolean canJoinListening(@NonNull KeywordInstance.ListenMode mode, float threshold) {
+        return listenRefs == 0
+                || (listenMode == mode
+                && mode != KeywordInstance.ListenMode.EXTERNAL
+                && Float.compare(listenThreshold, threshold) == 0);
+    }
+
+    synchronized void releaseListening() {
+        if (listenRefs == 0) return;
+        if (--listenRefs == 0) {
+            listenMode = KeywordInstance.ListenMode.NONE;
+            stopCapture();
+            stopLanes();
+        }
+    }
+
+    synchronized void acquireForeground() {
+        if (foregroundRefs++ == 0) detector.startForegroundService();
+    }
+
+    synchronized void releaseForeground() {
+        if (foregroundRefs == 0) return;
+        if (--foregroundRefs == 0) detector.stopForegroundService();
+    }
+
+    /** A replacement lane loaded and warmed off the monitor, not yet serving. */
+    static final class PendingLane {
+        final int index;
+        final KeyWordsDetection detector;
+        final long residentBytesDelta;
+        private final AtomicBoolean live;
+
+        PendingLane(int index, @NonNull KeyWordsDetection detector, long residentBytesDelta, @NonNull AtomicBoolean live) {
+            this.index = index;
+            this.detector = detector;
+            this.residentBytesDelta = residentBytesDelta;
+            this.live = live;
+        }
+    }
+
+    /**
+     * Load and warm a replacement for lane {@code index} of this parallel engine, as described
+     * by {@code target}. Runs without this monitor (beyond reading the license), so the current
+     * lanes keep serving frames meanwhile. Its detections are ignored until installed.
+     */
+    @NonNull
+    PendingLane loadLane(@NonNull Context context, @NonNull ModelSpec target, int index) throws Exception {
+        String key;
+        synchronized (this) {
+            if (detector == null) throw new IllegalStateException("Engine unloaded: " + spec);
+            key = licenseKey;
+        }
+        final AtomicBoolean live = new AtomicBoolean();
+        KeyWordsDetection d = target.newDetector(context, fastSession, index);
+        d.initialize((detected, modelFromCallback) -> {
+            if (detected && live.get()) dispatch(modelFromCallback);
+        });
+        if (key != null) d.setLicenseKey(key);
+        short[] silence = new short[WARMUP_FRAME_SAMPLES];
+        d.startListeningExternalAudio(1.0f);
+        try {
+            for (int i = 0; i < WARMUP_FRAMES; i++) {
+                d.pushNextFrame(silence, silence.length);
+            }
+        } finally {
+            d.stopListening();
+        }
+        long delta = estimateModelBytes(context, target.modelPaths[index])
+                - estimateModelBytes(context, spec.modelPaths[index]);
+        return new PendingLane(index, d, delta, live);
+    }
+
+    /**
+     * Swap a loaded lane in between two frames. Called by {@link ModelCache} with its monitor
+     * held; the new lane starts listening before the old one stops.
+     */
+    synchronized void installLane(@NonNull PendingLane lane, @NonNull ModelSpec target) throws OrtException {
+        if (detector == null) throw new IllegalStateException("Engine unloaded: " + spec);
+        KeyWordsDetection fresh = lane.detector;
+        KeyWordsDetection old = lanes[lane.index];
+        if (listenRefs > 0) fresh.startListeningExternalAudio(listenThreshold);
+        lane.live.set(true);
+        lanes[lane.index] = fresh; // read by LaneRunner under this monitor's push
+        if (lane.index == 0) {
+            detector = fresh;
+            if (foregroundRefs > 0) {
+                old.stopForegroundService();
+                fresh.startForegroundService();
+            }
+        }
+        try {
+            if (listenRefs > 0) old.stopListening();
+        } catch (Throwable t) {
+            Log.w(TAG, "Stopping replaced lane of " + spec + " failed: " + t.getMessage());
+        }
+        residentBytes += lane.residentBytesDelta;
+        spec = target;
+    }
+
+    /** Called by {@link ModelCache} when the last reference is released. */
+    synchronized void unload() {
+        if (detector == null) return;
+        try {
+            stopCapture();
+            if (listenRefs > 0) stopLanes();
+            if (foregroundRefs > 0) detector.stopForegroundService();
+        } catch (Throwable t) {
+            Log.w(TAG, "Unloading " + spec + " failed: " + t.getMessage());
+        }
+        if (laneRunner != null) laneRunner.close();
+        listenRefs = 0;
+        foregroundRefs = 0;
+        laneRunner = null;
+        lanes = null;
+        detector = null;
+    }
+
+    /**
+     * Push one frame, preceded by any pre-roll the gate releases, and record inference time.
+     * Returns false if the gate skipped the frame. Caller holds this monitor.
+     *
+     * @param energy the frame's energy if already known (shared capture), or -1
+     */
+    boolean pushGated(@NonNull short[] pcm,
+                      int length,
+                      long energy,
+                      @Nullable VadGate gate,
+                      @Nullable VadGate.Settings vad,
+                      @NonNull FrameStats metrics) {
+        if (detector == null) return true;
+        int preRoll = 0;
+        if (gate != null && vad != null) {
+            preRoll = energy < 0 ? gate.admit(pcm, length, vad) : gate.admit(pcm, length, energy, vad);
+            if (preRoll < 0) {
+                metrics.recordSkipped();
+                return false;
+            }
+            metrics.recordPreRollFlushed(preRoll);
+        }
+        for (int k = 0; k < preRoll; k++) {
+            long t0 = System.nanoTime();
+            pushFrame(gate.preRoll(k), gate.preRollLength(k));
+            metrics.recordFrame(System.nanoTime() - t0);
+        }
+        long t0 = System.nanoTime();
+        pushFrame(pcm, length);
+        metrics.recordFrame(System.nanoTime() - t0);
+        return true;
+    }
+
+    // Caller holds this monitor.
+    private void pushFrame(@NonNull short[] pcm, int length) {
+        if (laneRunner != null) {
+            laneRunner.push(pcm, length);
+        } else {
+            detector.pushNextFrame(pcm, length);
+        }
+    }
+
+    private void startExternal(float threshold) throws OrtException {
+        for (KeyWordsDetection lane : lanes) {
+            lane.startListeningExternalAudio(threshold);
+        }
+    }
+
+    private void stopLanes() {
+        for (KeyWordsDetection lane : lanes) {
+            lane.stopListening();
+        }
+    }
+
+    /**
+     * Gate settings for the shared-capture reader: gating applies only if every attached
+     * instance enabled it, and then with the most permissive of their settings.
+     */
+    @Nullable
+    private VadGate.Settings captureVadSettings() {
+        VadGate.Settings chosen = null;
+        for (KeywordInstance instance : attached) {
+            VadGate.Settings s = instance.vad;
+            if (s == null) return null;
+            if (chosen == null || s.morePermissiveThan(chosen)) chosen = s;
+        }
+        return chosen;
+    }
+
+    /** Shared-capture frames this engine skipped because it fell behind the recorder. */
+    long capturedFramesLost() {
+        AudioCaptureHub.Subscription c = capture;
+        return captureLost.get() + (c == null ? 0L : c.lostFrames());
+    }
+
+    // Caller holds this monitor.
+    private void stopCapture() {
+        if (capture == null) return;
+        AudioCaptureHub.shared().unsubscribe(capture);
+        captureLost.addAndGet(capture.lostFrames());
+        capture = null;
+    }
+
+    // Capture subscription thread: one frame of shared microphone audio.
+    private void onCapturedFrame(@NonNull short[] pcm, int length, long frameIndex, long captureNanos, long energy) {
+        for (KeywordInstance instance : attached) {
+            instance.markFrame(frameIndex, captureNanos);
+        }
+        VadGate.Settings vad = captureVadSettings();
+        synchronized (this) {
+            if (capture == null) return;
+            pushGated(pcm, length, energy, captureGate, vad, captureMetrics);
+        }
+    }
+
+    private void dispatch(@NonNull String modelName) {
+        if (suppressDispatch) return;
+        for (KeywordInstance instance : attached) {
+            instance.onDetected(modelName);
+        }
+    }
+
+    private static long estimateModelBytes(@NonNull Context context, @NonNull ModelSpec spec) {
+        long total = 0L;
+        for (String path : spec.modelPaths) {
+            total += estimateModelBytes(context, path);
+        }
+        return total;
+    }
+
+    /** Size from file or asset metadata; 0 (unknown) for compressed assets, which are not read to count. */
+    private static long estimateModelBytes(@NonNull Context context, @NonNull String path) {
+        File f = new File(path);
+        if (f.isAbsolute() && f.isFile()) return f.length();
+        try (AssetFileDescriptor fd = context.getAssets().openFd(path)) {
+            long len = fd.getLength();
+            if (len >= 0) return len;
+        } catch (Throwable ignored) {
+            // compressed asset: length unknown without inflating it
+        }
+        return 0L;
+    }
+}
@@ -0,0 +1,145 @@
+package com.davoice.keywordspotting;
+
+import androidx.annotation.NonNull;
+
+/**
+ * VadGate
+ *
+ * Cheap energy-based voice-activity gate placed in front of pushNextFrame. Frame energy is
+ * compared with an adaptive noise floor; frames judged non-speech are not inferred but are kept
+ * in a short pre-roll buffer. When speech starts, the pre-roll is handed to the detector first,
+ * so the model still sees the onset of the wake word. A hangover keeps the gate open briefly
+ * after speech ends.
+ *
+ * Thread-safety: not thread-safe; owned by the single thread that feeds one detector.
+ * Settings are passed per frame and may be swapped at any time.
+ */
+final class VadGate {
+
+    /** Immutable per-instance settings; null on an instance means the gate is off. */
+    static final class Settings {
+        final float sensitivity;  // 0 (skip most) .. 1 (skip least)
+        final int preRollMs;
+        final int hangoverMs;
+        final long thresholdQ8;   // speech if energy * 256 > floor * thresholdQ8
+
+        Settings(float sensitivity, int preRollMs, int hangoverMs) {
+            this.sensitivity = Math.max(0f, Math.min(1f, sensitivity));
+            this.preRollMs = Math.max(0, preRollMs);
+            this.hangoverMs = Math.max(0, hangoverMs);
+            // 3 dB above the floor at sensitivity 1, 15 dB at sensitivity 0.
+            double db = 3.0 + (1.0 - this.sensitivity) * 12.0;
+            this.thresholdQ8 = Math.round(Math.pow(10.0, db / 10.0) * 256.0);
+        }
+
+        /** True if this setting gates less than {@code other}. */
+        boolean morePermissiveThan(@NonNull Settings other) {
+            if (sensitivity != other.sensitivity) return sensitivity > other.sensitivity;
+            return preRollMs > other.preRollMs;
+        }
+    }
+
+    static final float DEFAULT_SENSITIVITY = 0.5f;
+    static final int DEFAULT_PRE_ROLL_MS = 480;
+    static final int DEFAULT_HANGOVER_MS = 400;
+
+    private static final int SAMPLES_PER_MS = AudioCaptureHub.SAMPLE_RATE / 1000;
+    /** Mean-square floor below which audio counts as digital silence (about -70 dBFS). */
+    private static final long MIN_FLOOR = 100L;
+
+    private long noiseFloor = -1L;
+    private long hangoverSamples;
+
+    private short[][] preRoll = new short[0][];
+    private int[] preRollLengths = new int[0];
+    private int preRollStart;
+    private int preRollCount;
+    private int flushed;
+
+    /**
+     * Classify one frame.
+     *
+     * @return -1 if the frame should be skipped (it is kept as pre-roll); otherwise the number
+     *         of pre-roll frames to push, via {@link #preRoll(int)}, before this frame
+     */
+    int admit(@NonNull short[] pcm, int length, @NonNull Settings s) {
+        if (length <= 0) return -1;
+        return admit(pcm, length, energy(pcm, length), s);
+    }
+
+    /** As {@link #admit(short[], int, Settings)} with the frame energy already computed. */
+    int admit(@NonNull short[] pcm, int length, long energy, @NonNull Settings s) {
+        if (length <= 0) return -1;
+        if (noiseFloor < 0) noiseFloor = energy;
+        long floor = Math.max(noiseFloor, MIN_FLOOR);
+        boolean speech = energy * 256L > floor * s.thresholdQ8;
+
+        // Track the floor quickly downwards and slowly upwards (~5 s to follow a louder room).
+        if (energy < noiseFloor) {
+            noiseFloor += (energy - noiseFloor) >> 2;
+        } else if (!speech) {
+            noiseFloor += (energy - noiseFloor) >> 6;
+        }
+
+        if (speech) {
+            hangoverSamples = (long) s.hangoverMs * SAMPLES_PER_MS;
+        } else if (hangoverSamples > 0) {
+            hangoverSamples -= length;
+            speech = true;
+        }
+
+        if (!speech) {
+            keep(pcm, length, s);
+            return -1;
+        }
+        flushed = preRollCount;
+        preRollCount = 0;
+        return flushed;
+    }
+
+    /** Mean-square energy of one frame in PCM16 units. */
+    static long energy(@NonNull short[] pcm, int length) {
+        long sum = 0L;
+        for (int i = 0; i < length; i++) {
+            int v = pcm[i];
+            sum += v * v;
+        }
+        return length == 0 ? 0L : sum / length;
+    }
+
+    /** Pre-roll frame {@code k} (oldest first) announced by the last {@link #admit}. */
+    @NonNull
+    short[] preRoll(int k) {
+        return preRoll[slot(k)];
+    }
+
+    int preRollLength(int k) {
+        return preRollLengths[slot(k)];
+    }
+
+    private int slot(int k) {
+        // After a flush preRollCount is 0 and the flushed frames end just before preRollStart.
+        int cap = preRoll.length;
+        return ((preRollStart - flushed + k) % cap + cap) % cap;
+    }
+
+    private void keep(short[] pcm, int length, Settings s) {
+        int frames = (s.preRollMs * SAMPLES_PER_MS + length - 1) / length;
+        if (frames == 0) return;
+        if (preRoll.length != frames) {
+            preRoll = new short[frames][length];
+            preRollLengths = new int[frames];
+            preRollStart = 0;
+            preRollCount = 0;
+        }
+        short[] slot = preRoll[preRollStart];
+        if (slot.length < length) {
+            slot = new short[length];
+            preRoll[preRollStart] = slot;
+        }
+        System.arraycopy(pcm, 0, slot, 0, length);
+        preRollLengths[preRollStart] = length;
+        preRollStart = (preRollStart + 1) % frames;
+        if (preRollCount < frames) preRollCount++;
+    }
+}
@@ -1,18 +1,34 @@
 package com.davoice.keywordspotting;
 
 import android.content.Context;
+import android.os.Process;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
-import com.davoice.keywordsdetection.keywordslibrary.KeyWordsDetection;
-
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import ai.onnxruntime.OrtException;
 
@@ -23,7 +39,9 @@ import ai.onnxruntime.OrtException;
  * addressed by string IDs. Each instance can be single-model or multi-model.
  *
  * Thread-safety: public mutating methods synchronize on the per-instance object
- * and the manager keeps instances in a ConcurrentHashMap.
+ * and the manager keeps instances in a ConcurrentHashMap. External audio frames bypass
+ * the instance lock: they are queued through a lock-free {@link FrameSink} and drained
+ * into the detector on a per-instance consumer thread.
  */
 public class KeywordDetectionAPI {
 
@@ -32,7 +50,8 @@ public class KeywordDetectionAPI {
     /** Listener for keyword detections (fired when detected==true). */
     public interface OnKeywordDetectionListener {
         /**
-         * Called when a keyword is detected.
+         * Called when a keyword is detected, on the executor the listener was registered with
+         * (never on the inference thread).
          * NOTE: This may run on a non-UI thread. If updating UI, post to the main thread.
          *
          * @param instanceId The instance that detected the phrase.
@@ -41,30 +60,217 @@ public class KeywordDetectionAPI {
         void onKeywordDetected(@NonNull String instanceId, @NonNull String phrase);
     }
 
+    /** Listener for detections with timing and threshold details. */
+    public interface OnDetectionEventListener {
+        /**
+         * Called on the executor the listener was registered with (never on the inference thread).
+         * The event is pooled and recycled when this method returns; use
+         * {@link DetectionEvent#copy()} to keep it.
+         */
+        void onDetection(@NonNull DetectionEvent event);
+    }
+
     /** Convenient configuration for building multi-model instances. */
     public static final class InstanceConfig {
         public final String modelName;          // path/identifier of the model (e.g., "hey_lookdeep.dm")
         public final float  threshold;          // 0..1
         public final int    bufferCnt;          // frames to aggregate pre/post
-        public final boolean sticky;            // not used by KeyWordsDetection constructor; kept for parity
+        public final boolean sticky;            // stop pauses instead of tearing down (any sticky config makes the instance sticky)
         public final long   msBetweenCallbacks; // debounce between callbacks per model
+        public final LatencyProfile latencyProfile; // per instance; the most demanding config wins
 
         public InstanceConfig(@NonNull String modelName,
                               float threshold,
                               int bufferCnt,
                               boolean sticky,
                               long msBetweenCallbacks) {
+            this(modelName, threshold, bufferCnt, sticky, msBetweenCallbacks, LatencyProfile.BALANCED);
+        }
+
+        public InstanceConfig(@NonNull String modelName,
+                              float threshold,
+                              int bufferCnt,
+                              boolean sticky,
+                              long msBetweenCallbacks,
+                              @NonNull LatencyProfile latencyProfile) {
             this.modelName = modelName;
             this.threshold = threshold;
             this.bufferCnt = bufferCnt;
             this.sticky = sticky;
             this.msBetweenCallbacks = msBetweenCallbacks;
+            this.latencyProfile = latencyProfile;
+        }
+    }
+
+    /**
+     * Inference latency vs. power trade-off for an instance.
+     * Ordered from least to most demanding.
+     */
+    public enum LatencyProfile {
+        /** Default ORT session; frame consumer runs at background priority. */
+        LOW_POWER(false, Process.THREAD_PRIORITY_BACKGROUND),
+        /** Default ORT session and thread priority (the historical behavior). */
+        BALANCED(false, Process.THREAD_PRIORITY_DEFAULT),
+        /** Fast ORT session; frame consumer runs at urgent-audio priority. */
+        LOW_LATENCY(true, Process.THREAD_PRIORITY_URGENT_AUDIO);
+
+        final boolean fastSession;
+        final int threadPriority;
+
+        LatencyProfile(boolean fastSession, int threadPriority) {
+            this.fastSession = fastSession;
+            this.threadPriority = threadPriority;
+        }
+    }
+
+    /**
+     * How a multi-model instance evaluates its models for each frame.
+     *
+     * SEQUENTIAL: one multi-model detector; the library evaluates the models one after another.
+     * PARALLEL:   one single-model detector per model, each on its own core; a frame is handed
+     *             to all of them at once, so per-frame latency follows the slowest model rather
+     *             than the sum. This trades CPU and memory for latency: each detector runs its
+     *             own audio front end and ORT session, so the front end is computed once per
+     *             model and total CPU time does not drop. The library offers no shared front end
+     *             that several models could consume.
+     */
+    public enum ExecutionMode { SEQUENTIAL, PARALLEL }
+
+    /** Point-in-time counters of the process-wide model cache. */
+    public static final class ModelCacheStats {
+        public final long hits;          // acquisitions served by an already-loaded detector
+        public final long misses;        // acquisitions that loaded models and created a session
+        public final long residentBytes; // model bytes held by loaded detectors; compressed assets count as 0
+        public final int  sharedEntries; // distinct model/session combinations currently shared
+
+        ModelCacheStats(long hits, long misses, long residentBytes, int sharedEntries) {
+            this.hits = hits;
+            this.misses = misses;
+            this.residentBytes = residentBytes;
+            this.sharedEntries = sharedEntries;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return "ModelCacheStats{hits=" + hits + ", misses=" + misses
+                    + ", residentBytes=" + residentBytes + ", sharedEntries=" + sharedEntries + "}";
+        }
+    }
+
+    /**
+     * Point-in-time metrics of one instance. Frame and inference figures cover audio handed to
+     * the detector by this wrapper (FrameSink / pushNextFrame); when the library captures the
+     * microphone itself it does not expose per-frame timing.
+     */
+    public static final class InstanceMetrics {
+        public final long framesProcessed;      // frames handed to pushNextFrame
+        public final long framesSkipped;        // frames the voice-activity gate kept from inference
+        public final long inferenceP50Nanos;    // pushNextFrame time percentiles (within 12.5%)
+        public final long inferenceP95Nanos;
+        public final long inferenceP99Nanos;
+        public final long inferenceMaxNanos;
+        public final long inferenceMeanNanos;
+        public final Map<String, Long> detectionsPerModel; // delivered detections by model ("" = unmatched name)
+        public final long suppressedCallbacks;  // detections inside a model's msBetweenCallbacks window or of a disabled model
+        public final int  queuedFrames;         // frames waiting in the sink
+        public final long droppedFrames;        // frames a FrameSink dropped because its ring was full
+        public final long droppedEvents;        // detections dropped because a listener queue was full
+
+        InstanceMetrics(long framesProcessed,
+                        long framesSkipped,
+                        long inferenceP50Nanos,
+                        long inferenceP95Nanos,
+                        long inferenceP99Nanos,
+                        long inferenceMaxNanos,
+                        long inferenceMeanNanos,
+                        @NonNull Map<String, Long> detectionsPerModel,
+                        long suppressedCallbacks,
+                        int queuedFrames,
+                        long droppedFrames,
+                        long droppedEvents) {
+            this.framesProcessed = framesProcessed;
+            this.framesSkipped = framesSkipped;
+            this.inferenceP50Nanos = inferenceP50Nanos;
+            this.inferenceP95Nanos = inferenceP95Nanos;
+            this.inferenceP99Nanos = inferenceP99Nanos;
+            this.inferenceMaxNanos = inferenceMaxNanos;
+            this.inferenceMeanNanos = inferenceMeanNanos;
+            this.detectionsPerModel = detectionsPerModel;
+            this.suppressedCallbacks = suppressedCallbacks;
+            this.queuedFrames = queuedFrames;
+            this.droppedFrames = droppedFrames;
+            this.droppedEvents = droppedEvents;
+        }
+
+        /** Share of wrapper-fed frames the voice-activity gate skipped (0 when it is off). */
+        public double skipRatio() {
+            long total = framesProcessed + framesSkipped;
+            return total == 0 ? 0.0 : (double) framesSkipped / total;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return "InstanceMetrics{frames=" + framesProcessed + ", skipped=" + framesSkipped
+                    + ", inferenceUs(p50/p95/p99/max)=" + inferenceP50Nanos / 1000 + "/" + inferenceP95Nanos / 1000
+                    + "/" + inferenceP99Nanos / 1000 + "/" + inferenceMaxNanos / 1000
+                    + ", detections=" + detectionsPerModel + ", suppressed=" + suppressedCallbacks
+                    + ", queued=" + queuedFrames + ", droppedFrames=" + droppedFrames
+                    + ", droppedEvents=" + droppedEvents + "}";
+        }
+    }
+
+    /**
+     * Runtime parameters of one model of an instance; see {@link #getModelParameters} and
+     * {@link #updateModelParameters}.
+     */
+    public static final class ModelParameters {
+        public final String modelName;          // model path as loaded
+        public final float threshold;
+        public final int bufferCnt;
+        public final long msBetweenCallbacks;
+        public final boolean enabled;           // false = detections are dropped
+
+        public ModelParameters(@NonNull String modelName,
+                               float threshold,
+                               int bufferCnt,
+                               long msBetweenCallbacks,
+                               boolean enabled) {
+            this.modelName = modelName;
+            this.threshold = threshold;
+            this.bufferCnt = bufferCnt;
+            this.msBetweenCallbacks = msBetweenCallbacks;
+            this.enabled = enabled;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return "ModelParameters{" + modelName + ", threshold=" + threshold + ", bufferCnt=" + bufferCnt
+                    + ", msBetweenCallbacks=" + msBetweenCallbacks + (enabled ? "" : ", disabled") + "}";
         }
     }
 
+    /** Receives periodic metrics snapshots; see {@link #setMetricsReporter}. */
+    public interface MetricsReporter {
+        /** Called once per instance per period, on a background thread. */
+        void onMetrics(@NonNull String instanceId, @NonNull InstanceMetrics metrics);
+    }
+
+    /** Bounded pool for asynchronous instance creation; distinct models load in parallel. */
+    private static final ExecutorService LOADER = newLoaderExecutor();
+
     private final Context appContext;
-    private final Map<String, KeyWordsDetection> instances = new ConcurrentHashMap<>();
-    private volatile @Nullable OnKeywordDetectionListener globalListener;
+    private final Map<String, KeywordInstance> instances = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Boolean> pendingIds = new ConcurrentHashMap<>();
+    private final ModelCache modelCache = ModelCache.shared();
+    private final KeywordInstance.DetectionHandler detectionHandler = this::onDetected;
+    private volatile @Nullable DetectionDispatcher globalDispatcher;
+    private volatile boolean modelSharing = false;
+    private volatile boolean sharedCapture = false;
+    private @Nullable ScheduledExecutorService metricsTimer; // guarded by this
+    private @Nullable ScheduledFuture<?> metricsReport;      // guarded by this
 
     /**
      * @param context Any context; the ApplicationContext is retained internally.
@@ -73,9 +279,231 @@ public class KeywordDetectionAPI {
         this.appContext = context.getApplicationContext();
     }
 
-    /** Optional: Set one global listener to receive detection events from ALL instances. */
+    /**
+     * Optional: Set one global listener to receive detection events from ALL instances.
+     * It is called on a shared background callback thread.
+     */
     public void setOnKeywordDetectionListener(@Nullable OnKeywordDetectionListener listener) {
-        this.globalListener = listener;
+        setOnKeywordDetectionListener(listener, CallbackExecutor.INSTANCE);
+    }
+
+    /** Optional: Set one global listener, called on {@code executor}. */
+    public void setOnKeywordDetectionListener(@Nullable OnKeywordDetectionListener listener,
+                                              @NonNull Executor executor) {
+        this.globalDispatcher = listener == null ? null : new DetectionDispatcher(listener, executor);
+    }
+
+    /**
+     * Optional: Set one global {@link DetectionEvent} listener for ALL instances, called on
+     * {@code executor}. Replaces any listener set with {@link #setOnKeywordDetectionListener}.
+     */
+    public void setOnDetectionEventListener(@Nullable OnDetectionEventListener listener,
+                                            @NonNull Executor executor) {
+        this.globalDispatcher = listener == null ? null : new DetectionDispatcher(listener, executor);
+    }
+
+    /**
+     * Add a listener for one instance, called on {@code executor}. Each listener has its own
+     * bounded event queue; if it falls behind, new events for it are dropped and counted
+     * (see {@link #getDroppedDetectionEvents(String)}).
+     *
+     * @throws IllegalStateException if instance does not exist
+     */
+    public void addOnKeywordDetectionListener(@NonNull String instanceId,
+                                              @NonNull Executor executor,
+                                              @NonNull OnKeywordDetectionListener listener) {
+        requireInstance(instanceId).dispatchers.add(new DetectionDispatcher(listener, executor));
+    }
+
+    /**
+     * Add a {@link DetectionEvent} listener for one instance, called on {@code executor}.
+     * Queueing and drop accounting are the same as for {@link #addOnKeywordDetectionListener}.
+     *
+     * @throws IllegalStateException if instance does not exist
+     */
+    public void addOnDetectionEventListener(@NonNull String instanceId,
+                                            @NonNull Executor executor,
+                                            @NonNull OnDetectionEventListener listener) {
+        requireInstance(instanceId).dispatchers.add(new DetectionDispatcher(listener, executor));
+    }
+
+    /**
+     * Remove a listener added with {@link #addOnKeywordDetectionListener}.
+     *
+     * @return true if it was registered
+     * @throws IllegalStateException if instance does not exist
+     */
+    public boolean removeOnKeywordDetectionListener(@NonNull String instanceId,
+                                                    @NonNull OnKeywordDetectionListener listener) {
+        return removeDispatcher(requireInstance(instanceId), listener);
+    }
+
+    /**
+     * Remove a listener added with {@link #addOnDetectionEventListener}.
+     *
+     * @return true if it was registered
+     * @throws IllegalStateException if instance does not exist
+     */
+    public boolean removeOnDetectionEventListener(@NonNull String instanceId,
+                                                  @NonNull OnDetectionEventListener listener) {
+        return removeDispatcher(requireInstance(instanceId), listener);
+    }
+
+    private static boolean removeDispatcher(@NonNull KeywordInstance instance, @NonNull Object listener) {
+        for (DetectionDispatcher d : instance.dispatchers) {
+            if (d.key == listener) return instance.dispatchers.remove(d);
+        }
+        return false;
+    }
+
+    /**
+     * Detections of this instance that were dropped because a listener (per-instance or global)
+     * had a full queue.
+     *
+     * @throws IllegalStateException if instance does not exist
+     */
+    public long getDroppedDetectionEvents(@NonNull String instanceId) {
+        return requireInstance(instanceId).droppedEvents.get();
+    }
+
+    /**
+     * Enable/disable model sharing for instances created (or re-modeled) from now on. Default: disabled.
+     *
+     * With sharing, instances with the same models and latency profile are loaded once and run on
+     * one detector and ORT session. The library keeps the audio stream state in the detector, so
+     * instances keep sharing it only while they listen to the same audio the same way: the
+     * microphone or shared capture, in the same mode and at the same threshold. An instance that
+     * starts listening otherwise (other mode or threshold, or external audio while another
+     * instance listens on the detector) is moved to a private detector with the same models.
+     */
+    public void setModelSharingEnabled(boolean enabled) {
+        this.modelSharing = enabled;
+    }
+
+    /**
+     * Enable/disable the shared microphone capture for detection started from now on. Default:
+     * disabled, so each detector opens the microphone itself through the library as before.
+     *
+     * When enabled, {@link #startKeywordDetection} does not let each detector open its own
+     * microphone: one process-wide recorder (android-voice-processor, 16 kHz) feeds a broadcast
+     * ring and every listening detector reads it with its own cursor. Instances sharing a model
+     * share one reader, so capture and buffering cost stay flat as instances are added.
+     * PARALLEL instances always listen on the shared capture.
+     */
+    public void setSharedCaptureEnabled(boolean enabled) {
+        this.sharedCapture = enabled;
+    }
+
+    /** Returns true if the shared capture recorder is currently running. */
+    public static boolean isSharedCaptureRunning() {
+        return AudioCaptureHub.shared().isRecording();
+    }
+
+    /** Returns counters of the process-wide model cache (shared by all KeywordDetectionAPI objects). */
+    @NonNull
+    public static ModelCacheStats getModelCacheStats() {
+        ModelCache c = ModelCache.shared();
+        return new ModelCacheStats(c.hits(), c.misses(), c.residentBytes(), c.sharedEntryCount());
+    }
+
+    /**
+     * Returns a snapshot of the instance's metrics. Recording is always on; it uses atomic
+     * counters only, so it is cheap enough to leave enabled in production.
+     *
+     * @throws IllegalStateException if instance does not exist
+     */
+    @NonNull
+    public InstanceMetrics getInstanceMetrics(@NonNull String instanceId) {
+        return snapshot(requireInstance(instanceId));
+    }
+
+    /**
+     * Report every instance's metrics to {@code reporter} every {@code period}, on a background
+     * thread owned by this API object. Pass null to stop reporting.
+     */
+    public synchronized void setMetricsReporter(@Nullable final MetricsReporter reporter,
+                                                long period,
+                                                @NonNull TimeUnit unit) {
+        if (metricsReport != null) {
+            metricsReport.cancel(false);
+            metricsReport = null;
+        }
+        if (reporter == null) return;
+        if (period <= 0) throw new IllegalArgumentException("period must be > 0");
+        if (metricsTimer == null) {
+            ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, r -> {
+                Thread t = new Thread(r, "kwd-metrics");
+                t.setDaemon(true);
+                return t;
+            });
+            timer.setRemoveOnCancelPolicy(true);
+            metricsTimer = timer;
+        }
+        metricsReport = metricsTimer.scheduleAtFixedRate(() -> {
+            for (KeywordInstance instance : instances.values()) {
+                try {
+                    reporter.onMetrics(instance.instanceId, snapshot(instance));
+                } catch (Throwable t) {
+                    // Keep the schedule alive; a throwing task would be cancelled.
+                    Log.w(TAG, "Metrics reporter threw for " + instance.instanceId + ": " + t.getMessage());
+                }
+            }
+        }, period, period, unit);
+    }
+
+    /**
+     * Enable/disable the voice-activity gate for one instance, with default sensitivity and pre-roll.
+     *
+     * @see #setVoiceActivityGate(String, boolean, float, int)
+     */
+    public void setVoiceActivityGate(@NonNull String instanceId, boolean enabled) {
+        setVoiceActivityGate(instanceId, enabled, VadGate.DEFAULT_SENSITIVITY, VadGate.DEFAULT_PRE_ROLL_MS);
+    }
+
+    /**
+     * Enable/disable an energy-based voice-activity gate in front of inference. Frames judged
+     * non-speech are not inferred; the last {@code preRollMs} of them are inferred once speech
+     * starts, so the model still sees the start of the wake word. The share of skipped frames is
+     * reported by {@link InstanceMetrics#skipRatio()}.
+     *
+     * Applies to audio the wrapper feeds (FrameSink / pushNextFrame and shared capture), not to
+     * the library's own microphone capture. Instances sharing a detector through shared capture
+     * are gated only if all of them enable it, using the most permissive setting.
+     *
+     * @param sensitivity 0..1; higher lets quieter speech through (fewer skipped frames)
+     * @param preRollMs   audio kept before a speech onset (default 480 ms)
+     * @throws IllegalStateException if instance does not exist
+     */
+    public void setVoiceActivityGate(@NonNull String instanceId, boolean enabled, float sensitivity, int preRollMs) {
+        requireInstance(instanceId).vad = enabled
+                ? new VadGate.Settings(sensitivity, preRollMs, VadGate.DEFAULT_HANGOVER_MS)
+                : null;
+    }
+
+    /**
+     * Keep the last ~2.5 s of audio pushed to this instance (FrameSink / pushNextFrame) so that
+     * {@link #copyDetectionAudio} can return the audio behind a detection. Shared capture keeps
+     * its own history; library-owned microphone capture has none. Default: off.
+     *
+     * @throws IllegalStateException if instance does not exist
+     */
+    public void setDetectionAudioHistoryEnabled(@NonNull String instanceId, boolean enabled) {
+        requireInstance(instanceId).historyEnabled = enabled;
+    }
+
+    /**
+     * Copy up to {@code samples} samples of the audio this instance was fed, ending with the frame
+     * captured at {@code captureTimeNanos} (pass {@link DetectionEvent#getCaptureTimeNanos()} to
+     * get the window that triggered a detection), oldest first. No WAV round trip.
+     *
+     * @return samples copied; 0 if that audio is no longer (or was never) held
+     * @throws IllegalStateException if instance does not exist
+     */
+    public int copyDetectionAudio(@NonNull String instanceId,
+                                  long captureTimeNanos,
+                                  @NonNull short[] out,
+                                  int samples) {
+        return requireInstance(instanceId).copyAudio(captureTimeNanos, out, samples);
     }
 
     /** Returns true if an instance with the given ID exists. */
@@ -90,7 +518,7 @@ public class KeywordDetectionAPI {
     }
 
     /**
-     * Create a SINGLE-model instance.
+     * Create a SINGLE-model instance with the {@link LatencyProfile#BALANCED} profile.
      *
      * @throws IllegalStateException if instanceId already exists
      * @throws Exception             if underlying creation/initialize fails
@@ -99,22 +527,68 @@ public class KeywordDetectionAPI {
                                @NonNull String modelName,
                                float threshold,
                                int bufferCnt) throws Exception {
-        if (instances.containsKey(instanceId)) {
-            throw new IllegalStateException("Instance already exists: " + instanceId);
-        }
+        createInstance(instanceId, modelName, threshold, bufferCnt, LatencyProfile.BALANCED);
+    }
 
-        boolean fastSession = false; // change to true to minimize latency
-        KeyWordsDetection detector = new KeyWordsDetection(appContext, modelName, threshold, bufferCnt, fastSession);
-        // Bridge library callback -> API listener
-        detector.initialize((detected, modelFromCallback) -> {
-            if (detected) {
-                OnKeywordDetectionListener l = globalListener;
-                if (l != null) l.onKeywordDetected(instanceId, modelFromCallback);
-            }
-        });
+    /**
+     * Create a SINGLE-model instance.
+     *
+     * @throws IllegalStateException if instanceId already exists
+     * @throws Exception             if underlying creation/initialize fails
+     */
+    public void createInstance(@NonNull String instanceId,
+                               @NonNull String modelName,
+                               float threshold,
+                               int bufferCnt,
+                               @NonNull LatencyProfile profile) throws Exception {
+        createNow(instanceId, fixed(ModelSpec.single(modelName, threshold, bufferCnt)), profile, false);
+    }
+
+    /**
+     * Create a SINGLE-model instance on a background loader thread.
+     * The ID is reserved immediately; {@link #hasInstance(String)} turns true when the future completes.
+     *
+     * @param warmUp if true, run a few frames of silence through the new session before completing,
+     *               so the first real frame does not pay ORT first-run cost
+     * @return a future that completes when the instance is usable; {@code get()} rethrows creation failures
+     * @throws IllegalStateException if instanceId already exists or is being created
+     */
+    @NonNull
+    public Future<Void> createInstanceAsync(@NonNull String instanceId,
+                                            @NonNull String modelName,
+                                            float threshold,
+                                            int bufferCnt,
+                                            @NonNull LatencyProfile profile,
+                                            boolean warmUp) {
+        return submitCreate(instanceId, fixed(ModelSpec.single(modelName, threshold, bufferCnt)), profile, false, warmUp);
+    }
 
-        instances.put(instanceId, detector);
-        Log.d(TAG, "Created single-model instance: " + instanceId + " (" + modelName + ")");
+    /**
+     * Create a SINGLE-model instance from an asset, a file or a mapped buffer.
+     *
+     * @throws IllegalStateException if instanceId already exists
+     * @throws Exception             if the source cannot be resolved or creation/initialize fails
+     */
+    public void createInstance(@NonNull String instanceId,
+                               @NonNull ModelSource model,
+                               float threshold,
+                               int bufferCnt,
+                               @NonNull LatencyProfile profile) throws Exception {
+        createNow(instanceId, singleSpec(model, threshold, bufferCnt), profile, false);
+    }
+
+    /**
+     * Async variant of {@link #createInstance(String, ModelSource, float, int, LatencyProfile)};
+     * the source is resolved on the loader thread.
+     */
+    @NonNull
+    public Future<Void> createInstanceAsync(@NonNull String instanceId,
+                                            @NonNull ModelSource model,
+                                            float threshold,
+                                            int bufferCnt,
+                                            @NonNull LatencyProfile profile,
+                                            boolean warmUp) {
+        return submitCreate(instanceId, singleSpec(model, threshold, bufferCnt), profile, false, warmUp);
     }
 
     /**
@@ -130,66 +604,381 @@ public class KeywordDetectionAPI {
                                     @NonNull float[] thresholds,
                                     @NonNull int[] bufferCnts,
                                     @NonNull long[] msBetweenCallback) throws Exception {
-        if (instances.containsKey(instanceId)) {
-            throw new IllegalStateException("Instance already exists: " + instanceId);
-        }
-        int size = modelPaths.length;
-        if (size == 0 ||
-            thresholds.length != size ||
-            bufferCnts.length != size ||
-            msBetweenCallback.length != size) {
-            throw new IllegalArgumentException("All input arrays must have the same non-zero length.");
-        }
-        boolean fastSession = false; // change to true to minimize latency
-        KeyWordsDetection detector = new KeyWordsDetection(appContext, modelPaths, thresholds, bufferCnts, msBetweenCallback, fastSession);
-        detector.initialize((detected, modelFromCallback) -> {
-            if (detected) {
-                OnKeywordDetectionListener l = globalListener;
-                if (l != null) l.onKeywordDetected(instanceId, modelFromCallback);
+        createInstanceMulti(instanceId, modelPaths, thresholds, bufferCnts, msBetweenCallback, LatencyProfile.BALANCED);
+    }
+
+    /**
+     * Create a MULTI-model instance using parallel arrays and an explicit latency profile.
+     *
+     * @throws IllegalArgumentException if array sizes mismatch or empty
+     * @throws IllegalStateException    if instanceId already exists
+     * @throws Exception                if underlying creation/initialize fails
+     */
+    public void createInstanceMulti(@NonNull String instanceId,
+                                    @NonNull String[] modelPaths,
+                                    @NonNull float[] thresholds,
+                                    @NonNull int[] bufferCnts,
+                                    @NonNull long[] msBetweenCallback,
+                                    @NonNull LatencyProfile profile) throws Exception {
+        createNow(instanceId, fixed(multiSpec(modelPaths, thresholds, bufferCnts, msBetweenCallback)), profile, false);
+    }
+
+    /**
+     * Create a MULTI-model instance on a background loader thread.
+     * Several async creations load their models in parallel.
+     *
+     * @param warmUp if true, run a few frames of silence through the new session before completing
+     * @return a future that completes when the instance is usable; {@code get()} rethrows creation failures
+     * @throws IllegalArgumentException if array sizes mismatch or empty
+     * @throws IllegalStateException    if instanceId already exists or is being created
+     */
+    @NonNull
+    public Future<Void> createInstanceMultiAsync(@NonNull String instanceId,
+                                                 @NonNull String[] modelPaths,
+                                                 @NonNull float[] thresholds,
+                                                 @NonNull int[] bufferCnts,
+                                                 @NonNull long[] msBetweenCallback,
+                                                 @NonNull LatencyProfile profile,
+                                                 boolean warmUp) {
+        return submitCreate(instanceId, fixed(multiSpec(modelPaths, thresholds, bufferCnts, msBetweenCallback)), profile, false, warmUp);
+    }
+
+    /**
+     * Create a MULTI-model instance whose models come from assets, files or mapped buffers.
+     *
+     * @throws IllegalArgumentException if array sizes mismatch or empty
+     * @throws IllegalStateException    if instanceId already exists
+     * @throws Exception                if a source cannot be resolved or creation/initialize fails
+     */
+    public void createInstanceMulti(@NonNull String instanceId,
+                                    @NonNull ModelSource[] models,
+                                    @NonNull float[] thresholds,
+                                    @NonNull int[] bufferCnts,
+                                    @NonNull long[] msBetweenCallback,
+                                    @NonNull LatencyProfile profile) throws Exception {
+        createNow(instanceId, multiSpec(models, thresholds, bufferCnts, msBetweenCallback), profile, false);
+    }
+
+    /**
+     * Async variant of {@link #createInstanceMulti(String, ModelSource[], float[], int[], long[], LatencyProfile)};
+     * sources are resolved on the loader thread.
+     */
+    @NonNull
+    public Future<Void> createInstanceMultiAsync(@NonNull String instanceId,
+                                                 @NonNull ModelSource[] models,
+                                                 @NonNull float[] thresholds,
+                                                 @NonNull int[] bufferCnts,
+                                                 @NonNull long[] msBetweenCallback,
+                                                 @NonNull LatencyProfile profile,
+                                                 boolean warmUp) {
+        return submitCreate(instanceId, multiSpec(models, thresholds, bufferCnts, msBetweenCallback), profile, false, warmUp);
+    }
+
+    /**
+     * Create a MULTI-model instance from a list of {@link InstanceConfig} on a background loader thread.
+     *
+     * @see #createInstanceMultiAsync(String, String[], float[], int[], long[], LatencyProfile, boolean)
+     */
+    @NonNull
+    public Future<Void> createInstanceMultiAsync(@NonNull String instanceId,
+                                                 @NonNull List<InstanceConfig> configs,
+                                                 boolean warmUp) {
+        return submitCreate(instanceId, fixed(multiSpec(configs)), profileOf(configs), stickyOf(configs), warmUp);
+    }
+
+    /**
+     * Convenience: Create a MULTI-model instance from a list of {@link InstanceConfig}.
+     */
+    public void createInstanceMulti(@NonNull String instanceId,
+                                    @NonNull List<InstanceConfig> configs) throws Exception {
+        createNow(instanceId, fixed(multiSpec(configs)), profileOf(configs), stickyOf(configs));
+    }
+
+    /**
+     * Switch the latency profile of a live instance. The instance ID, its sink and its
+     * listening/license state are kept. If the ORT session options differ, the instance moves
+     * to a detector for its current models with the new options (loaded, or shared from the
+     * model cache); otherwise only the frame consumer's thread priority changes.
+     *
+     * Like a model swap, the replacement detector is loaded and warmed without the instance
+     * lock, on the calling thread; the instance keeps detecting on its current detector until
+     * the switch is committed.
+     *
+     * @throws IllegalStateException if the instance does not exist, or its model kept changing
+     *                               during the switch
+     * @throws Exception             if the replacement detector cannot be created
+     */
+    public void setLatencyProfile(@NonNull String instanceId,
+                                  @NonNull LatencyProfile profile) throws Exception {
+        KeywordInstance instance = requireInstance(instanceId);
+        for (int attempt = 1; ; attempt++) {
+            ModelSpec spec;
+            LatencyProfile current;
+            synchronized (instance) {
+                requireLive(instance);
+                current = instance.profile();
+                if (current == profile) return;
+                if (current.fastSession == profile.fastSession) {
+                    instance.setProfile(profile);
+                    Log.d(TAG, "Latency profile for " + instanceId + ": " + current + " -> " + profile);
+                    return;
+                }
+                spec = instance.spec;
             }
-        });
+            if (swapEngine(instance, spec, current, spec, profile) == SwapResult.DONE) {
+                Log.d(TAG, "Latency profile for " + instanceId + ": " + current + " -> " + profile);
+                return;
+            }
+            if (attempt == SWAP_ATTEMPTS) {
+                throw new IllegalStateException("Model of " + instanceId + " kept changing during the switch");
+            }
+        }
+    }
+
+    /**
+     * Switch a multi-model instance between sequential and parallel model evaluation. The
+     * instance moves to detectors for the new mode (models are reloaded unless already shared),
+     * keeping listeners, license and listening state. No-op for single-model instances.
+     *
+     * The detectors are loaded and warmed without the instance lock, on the calling thread, and
+     * swapped in as by {@link #replaceKeywordDetectionModelAsync}. PARALLEL runs one detector per model with its own
+     * front end, trading CPU and memory for per-frame latency (see {@link ExecutionMode}).
+     *
+     * PARALLEL instances take audio from FrameSink/pushNextFrame or the shared capture; if one is
+     * listening on a per-detector microphone it is moved to the shared capture.
+     *
+     * @throws IllegalStateException if the instance does not exist, or its model kept changing
+     *                               during the switch
+     * @throws Exception             if the detectors cannot be created
+     */
+    public void setExecutionMode(@NonNull String instanceId, @NonNull ExecutionMode mode) throws Exception {
+        final boolean parallel = mode == ExecutionMode.PARALLEL;
+        hotSwap(requireInstance(instanceId), current -> current.withParallel(parallel));
+        Log.d(TAG, "Execution mode for " + instanceId + ": " + mode);
+    }
+
+    /**
+     * Returns the execution mode of an instance (SEQUENTIAL for single-model instances).
+     *
+     * @throws IllegalStateException if the instance does not exist
+     */
+    @NonNull
+    public ExecutionMode getExecutionMode(@NonNull String instanceId) {
+        return requireInstance(instanceId).spec.parallel ? ExecutionMode.PARALLEL : ExecutionMode.SEQUENTIAL;
+    }
+
+    /**
+     * Returns the latency profile of an instance.
+     *
+     * @throws IllegalStateException if the instance does not exist
+     */
+    @NonNull
+    public LatencyProfile getLatencyProfile(@NonNull String instanceId) {
+        return requireInstance(instanceId).profile();
+    }
+
+    /**
+     * Replace (hot-swap) the model for an existing instance (single-model semantics).
+     * The new detector is loaded and warmed up while the current one keeps serving (frames,
+     * detections and control calls on the instance are not blocked); the instance then switches
+     * at a frame boundary, the new detector listening before the old one stops. A detector it
+     * shared with other instances keeps serving them. Blocks the caller until the swap is done.
+     *
+     * @throws IllegalStateException if the instance does not exist or is destroyed meanwhile
+     * @throws Exception             if underlying replace fails
+     */
+    public void replaceKeywordDetectionModel(@NonNull String instanceId,
+                                             @NonNull String modelName,
+                                             float threshold,
+                                             int bufferCnt) throws Exception {
+        hotSwap(requireInstance(instanceId), fixedChange(ModelSpec.single(modelName, threshold, bufferCnt)));
+    }
+
+    /**
+     * Replace the model from an asset, a file or a mapped buffer (single-model semantics).
+     * The source is resolved and loaded without the instance lock; see
+     * {@link #replaceKeywordDetectionModel(String, String, float, int)}.
+     *
+     * @throws IllegalStateException if the instance does not exist
+     * @throws Exception             if the source cannot be resolved or the replace fails
+     */
+    public void replaceKeywordDetectionModel(@NonNull String instanceId,
+                                             @NonNull ModelSource model,
+                                             float threshold,
+                                             int bufferCnt) throws Exception {
+        hotSwap(requireInstance(instanceId), singleChange(model, threshold, bufferCnt));
+    }
+
+    /**
+     * Async variant of {@link #replaceKeywordDetectionModel(String, String, float, int)}: loads
+     * and warms on the loader pool and returns at once. The future completes when the instance
+     * runs on the new model.
+     *
+     * @throws IllegalStateException if the instance does not exist
+     */
+    @NonNull
+    public Future<Void> replaceKeywordDetectionModelAsync(@NonNull String instanceId,
+                                                          @NonNull String modelName,
+                                                          float threshold,
+                                                          int bufferCnt) {
+        return submitSwap(requireInstance(instanceId), fixedChange(ModelSpec.single(modelName, threshold, bufferCnt)));
+    }
+
+    /** Async variant of {@link #replaceKeywordDetectionModel(String, ModelSource, float, int)}. */
+    @NonNull
+    public Future<Void> replaceKeywordDetectionModelAsync(@NonNull String instanceId,
+                                                          @NonNull ModelSource model,
+                                                          float threshold,
+                                                          int bufferCnt) {
+        return submitSwap(requireInstance(instanceId), singleChange(model, threshold, bufferCnt));
+    }
 
-        instances.put(instanceId, detector);
-        Log.d(TAG, "Created multi-model instance: " + instanceId + " (models=" + size + ")");
+    /**
+     * Replace model {@code index} of a multi-model instance, keeping the others. In
+     * {@link ExecutionMode#PARALLEL} only that model is loaded and swapped in place (its lane
+     * changes between two frames; the other lanes never stop), provided the instance does not
+     * share its detector. Otherwise a detector for the new set is loaded, as the library
+     * evaluates a multi-model set as one session. Either way the current detector keeps serving
+     * until the swap. Blocks the caller until the swap is done.
+     *
+     * @throws IllegalStateException    if the instance does not exist
+     * @throws IllegalArgumentException if {@code index} is out of range
+     * @throws Exception                if loading the model fails
+     */
+    public void replaceKeywordDetectionModelAt(@NonNull String instanceId,
+                                               int index,
+                                               @NonNull String modelPath,
+                                               float threshold,
+                                               int bufferCnt) throws Exception {
+        hotSwap(requireInstance(instanceId), entryChange(index, modelPath, threshold, bufferCnt));
+    }
+
+    /** Async variant of {@link #replaceKeywordDetectionModelAt}. */
+    @NonNull
+    public Future<Void> replaceKeywordDetectionModelAtAsync(@NonNull String instanceId,
+                                                            int index,
+                                                            @NonNull String modelPath,
+                                                            float threshold,
+                                                            int bufferCnt) {
+        return submitSwap(requireInstance(instanceId), entryChange(index, modelPath, threshold, bufferCnt));
     }
 
     /**
-     * Convenience: Create a MULTI-model instance from a list of {@link InstanceConfig}.
+     * Returns the current parameters of each model of the instance, in model order.
+     *
+     * @throws IllegalStateException if instance does not exist
      */
-    public void createInstanceMulti(@NonNull String instanceId,
-                                    @NonNull List<InstanceConfig> configs) throws Exception {
-        if (configs.isEmpty()) {
-            throw new IllegalArgumentException("configs must not be empty");
+    @NonNull
+    public List<ModelParameters> getModelParameters(@NonNull String instanceId) {
+        KeywordInstance instance = requireInstance(instanceId);
+        synchronized (instance) {
+            ModelSpec spec = instance.spec;
+            List<ModelParameters> out = new ArrayList<>(spec.size());
+            for (int i = 0; i < spec.size(); i++) {
+                out.add(new ModelParameters(spec.modelPaths[i], spec.thresholds[i], spec.bufferCnts[i],
+                        instance.metrics.debounceMillis(i), instance.metrics.isEnabled(i)));
+            }
+            return Collections.unmodifiableList(out);
         }
-        String[] paths = new String[configs.size()];
-        float[] thresholds = new float[configs.size()];
-        int[] bufferCnts = new int[configs.size()];
-        long[] msBetween = new long[configs.size()];
-        for (int i = 0; i < configs.size(); i++) {
-            InstanceConfig c = configs.get(i);
-            paths[i] = c.modelName;
-            thresholds[i] = c.threshold;
-            bufferCnts[i] = c.bufferCnt;
-            msBetween[i] = c.msBetweenCallbacks;
+    }
+
+    /**
+     * Enable or disable model {@code index} of the instance. Takes effect with the next
+     * detection; the model keeps running, its detections are dropped (and counted as
+     * suppressed) while disabled.
+     *
+     * @throws IllegalStateException    if instance does not exist
+     * @throws IllegalArgumentException if {@code index} is out of range
+     */
+    public void setModelEnabled(@NonNull String instanceId, int index, boolean enabled) {
+        KeywordInstance instance = requireInstance(instanceId);
+        synchronized (instance) {
+            checkModelIndex(instance, index);
+            instance.metrics.updateParameters(new int[]{index},
+                    new long[]{instance.metrics.debounceMillis(index)}, new boolean[]{enabled});
         }
-        createInstanceMulti(instanceId, paths, thresholds, bufferCnts, msBetween);
     }
 
     /**
-     * Replace (hot-swap) the model for an existing instance (single-model semantics).
+     * Change the debounce (msBetweenCallbacks) of model {@code index}. A multi-model detector
+     * debounces itself and fixes the value at load time, so there the change is hot-swapped in
+     * the background like a threshold; single-model and parallel instances, debounced by this
+     * wrapper, apply it with the next detection.
      *
-     * @throws IllegalStateException if the instance does not exist
-     * @throws Exception             if underlying replace fails
+     * @return completes when the new debounce is in effect
+     * @throws IllegalStateException    if instance does not exist
+     * @throws IllegalArgumentException if {@code index} is out of range
      */
-    public void replaceKeywordDetectionModel(@NonNull String instanceId,
-                                             @NonNull String modelName,
-                                             float threshold,
-                                             int bufferCnt) throws Exception {
-        KeyWordsDetection detector = requireInstance(instanceId);
-        synchronized (detector) {
-            detector.replaceKeywordDetectionModel(appContext, modelName, threshold, bufferCnt);
-            Log.d(TAG, "Replaced model for instance " + instanceId + " -> " + modelName);
+    @NonNull
+    public Future<Void> setModelDebounce(@NonNull String instanceId, final int index, long msBetweenCallbacks) {
+        KeywordInstance instance = requireInstance(instanceId);
+        final long ms = Math.max(0L, msBetweenCallbacks);
+        synchronized (instance) {
+            checkModelIndex(instance, index);
+            if (!instance.spec.libraryDebounce()) {
+                instance.spec = instance.spec.withDebounce(index, ms);
+                instance.metrics.updateParameters(new int[]{index},
+                        new long[]{ms}, new boolean[]{instance.metrics.isEnabled(index)});
+                return completed();
+            }
+        }
+        return submitSwap(instance, current -> current.withDebounce(index, ms));
+    }
+
+    /**
+     * Apply new parameters to the named models of the instance (models not listed keep theirs).
+     * Enabled flags, and debounces the wrapper applies, are published at once, as one update. A
+     * threshold or bufferCnt change, or a debounce change of a multi-model detector, needs a
+     * reloaded detector (the library fixes them at load time): it is hot-swapped in the background
+     * as by {@link #replaceKeywordDetectionModelAt}, the current detector serving until then, so
+     * no audio is lost; in {@link ExecutionMode#PARALLEL} only the changed model reloads.
+     *
+     * @return completes when the new parameters are in effect (at once if no reload is needed)
+     * @throws IllegalStateException    if instance does not exist
+     * @throws IllegalArgumentException if a model name is not one of the instance's models
+     */
+    @NonNull
+    public Future<Void> updateModelParameters(@NonNull String instanceId, @NonNull List<ModelParameters> params) {
+        KeywordInstance instance = requireInstance(instanceId);
+        final int n = params.size();
+        final int[] indices = new int[n];
+        long[] debounce = new long[n];
+        boolean[] enabled = new boolean[n];
+        boolean reload = false;
+        synchronized (instance) {
+            ModelSpec spec = instance.spec;
+            for (int k = 0; k < n; k++) {
+                ModelParameters p = params.get(k);
+                int i = spec.indexOf(p.modelName);
+                if (i < 0) {
+                    throw new IllegalArgumentException("Model " + p.modelName + " is not loaded by " + instanceId);
+                }
+                indices[k] = i;
+                debounce[k] = Math.max(0L, p.msBetweenCallbacks);
+                enabled[k] = p.enabled;
+                reload |= p.threshold != spec.thresholds[i] || p.bufferCnt != spec.bufferCnts[i];
+                if (spec.libraryDebounce()) {
+                    reload |= debounce[k] != spec.msBetweenCallbacks[i];
+                } else {
+                    spec = spec.withDebounce(i, debounce[k]);
+                }
+            }
+            instance.spec = spec;
+            instance.metrics.updateParameters(indices, debounce, enabled);
         }
+        if (!reload) return completed();
+        final List<ModelParameters> copy = new ArrayList<>(params);
+        return submitSwap(instance, current -> {
+            ModelSpec target = current;
+            for (int k = 0; k < n; k++) {
+                ModelParameters p = copy.get(k);
+                int i = current.indexOf(p.modelName);
+                if (i < 0) throw new IllegalStateException("Model " + p.modelName + " was replaced meanwhile");
+                target = target.withModel(i, target.modelPaths[i], p.threshold, p.bufferCnt)
+                        .withDebounce(i, Math.max(0L, p.msBetweenCallbacks));
+            }
+            return target;
+        });
     }
 
     /**
@@ -200,9 +989,10 @@ public class KeywordDetectionAPI {
      */
     public boolean setKeywordDetectionLicense(@NonNull String instanceId,
                                               @NonNull String licenseKey) {
-        KeyWordsDetection detector = requireInstance(instanceId);
-        synchronized (detector) {
-            boolean ok = detector.setLicenseKey(licenseKey);
+        KeywordInstance instance = requireInstance(instanceId);
+        synchronized (instance) {
+            boolean ok = instance.engine.setLicenseKey(licenseKey);
+            if (ok) instance.licenseKey = licenseKey;
             Log.d(TAG, "License for " + instanceId + ": " + (ok ? "Licensed" : "Not Licensed"));
             return ok;
         }
@@ -214,9 +1004,12 @@ public class KeywordDetectionAPI {
      * @throws IllegalStateException if instance does not exist
      */
     public void startForegroundService(@NonNull String instanceId) {
-        KeyWordsDetection detector = requireInstance(instanceId);
-        synchronized (detector) {
-            detector.startForegroundService();
+        KeywordInstance instance = requireInstance(instanceId);
+        synchronized (instance) {
+            if (!instance.foregroundService) {
+                instance.engine.acquireForeground();
+                instance.foregroundService = true;
+            }
             Log.d(TAG, "startForegroundService: " + instanceId);
         }
     }
@@ -227,9 +1020,12 @@ public class KeywordDetectionAPI {
      * @throws IllegalStateException if instance does not exist
      */
     public void stopForegroundService(@NonNull String instanceId) {
-        KeyWordsDetection detector = requireInstance(instanceId);
-        synchronized (detector) {
-            detector.stopForegroundService();
+        KeywordInstance instance = requireInstance(instanceId);
+        synchronized (instance) {
+            if (instance.foregroundService) {
+                instance.engine.releaseForeground();
+                instance.foregroundService = false;
+            }
             Log.d(TAG, "stopForegroundService: " + instanceId);
         }
     }
@@ -241,83 +1037,219 @@ public class KeywordDetectionAPI {
      * @throws OrtException          if thrown by underlying ORT calls
      */
     public void startKeywordDetectionExternal(@NonNull String instanceId, float threshold) throws OrtException {
-        KeyWordsDetection detector = requireInstance(instanceId);
-        synchronized (detector) {
-            detector.startListeningExternalAudio(threshold);
+        KeywordInstance instance = requireInstance(instanceId);
+        synchronized (instance) {
+            startListening(instance, KeywordInstance.ListenMode.EXTERNAL, threshold);
             Log.d(TAG, "Started detection: " + instanceId + " (threshold=" + threshold + ")");
         }
     }
 
 
     /**
-     * Pushes the external frame to detect.
+     * Get the lock-free ingestion handle for an instance's external audio.
+     * Fetch it once and push from the capture thread; see {@link FrameSink}.
+     *
+     * @throws IllegalStateException if instance does not exist
      */
+    @NonNull
+    public FrameSink getFrameSink(@NonNull String instanceId) {
+        return requireInstance(instanceId).frameSink();
+    }
 
+    /**
+     * Pushes the external frame to detect. Safe to call from any thread.
+     * The frame is copied into the instance's ring and processed asynchronously, in order. No
+     * frame is lost: if the ring is full (the caller feeds faster than the detector, e.g. file
+     * replay) this waits until the detector frees a slot. For a push that never blocks and drops
+     * instead, use {@link #getFrameSink(String)}.
+     *
+     * @throws IllegalStateException if instance does not exist
+     */
     public void pushNextFrame(@NonNull String instanceId, short[] pcm, int length) {
-        KeyWordsDetection detector = requireInstance(instanceId);
-        synchronized (detector) {
-            detector.pushNextFrame(pcm, length);
-        }
+        requireInstance(instanceId).frameSink().pushBlocking(pcm, 0, length);
+    }
+
+    /**
+     * Pushes {@code length} samples from a (typically direct) ShortBuffer, starting at absolute
+     * index {@code offset}. The samples are copied once into the instance ring; no short[] is allocated.
+     * Waits while the ring is full, as {@link #pushNextFrame(String, short[], int)} does.
+     *
+     * @throws IllegalStateException if instance does not exist
+     */
+    public void pushNextFrame(@NonNull String instanceId, @NonNull ShortBuffer pcm, int offset, int length) {
+        requireInstance(instanceId).frameSink().pushBlocking(pcm, offset, length);
     }
 
     /**
-     * Start keyword detection with a threshold override.
+     * Pushes {@code length} PCM16 samples from a (typically direct) ByteBuffer, starting at absolute
+     * byte index {@code byteOffset} and decoded in the buffer's byte order.
+     * Waits while the ring is full, as {@link #pushNextFrame(String, short[], int)} does.
      *
      * @throws IllegalStateException if instance does not exist
+     */
+    public void pushNextFrame(@NonNull String instanceId, @NonNull ByteBuffer pcm, int byteOffset, int length) {
+        requireInstance(instanceId).frameSink().pushBlocking(pcm, byteOffset, length);
+    }
+
+    /**
+     * Start keyword detection from the microphone with a threshold override. The library captures
+     * audio per detector unless the shared capture was enabled (see
+     * {@link #setSharedCaptureEnabled(boolean)}); PARALLEL instances always use the shared capture.
+     * On a sticky instance paused by {@link #stopKeywordDetection} with the same threshold this
+     * only resumes delivery: the stream and the model state never stopped.
+     *
+     * @throws IllegalStateException if instance does not exist, or the shared capture cannot start
      * @throws OrtException          if thrown by underlying ORT calls
      */
     public void startKeywordDetection(@NonNull String instanceId, float threshold) throws OrtException {
-        KeyWordsDetection detector = requireInstance(instanceId);
-        synchronized (detector) {
-            detector.startListening(threshold);
+        KeywordInstance instance = requireInstance(instanceId);
+        synchronized (instance) {
+            KeywordInstance.ListenMode mode = sharedCapture || instance.spec.parallel
+                    ? KeywordInstance.ListenMode.CAPTURE_HUB
+                    : KeywordInstance.ListenMode.MICROPHONE;
+            if (instance.paused && instance.listenMode == mode && instance.listenThreshold == threshold) {
+                instance.paused = false;
+                Log.d(TAG, "Resumed detection: " + instanceId);
+                return;
+            }
+            startListening(instance, mode, threshold);
             Log.d(TAG, "Started detection: " + instanceId + " (threshold=" + threshold + ")");
         }
     }
 
     /**
-     * Stop keyword detection.
+     * Stop keyword detection. A sticky instance (see {@link #setSticky}) listening to the
+     * microphone is paused instead: capture and inference keep running and only detections
+     * stop, so the next {@link #startKeywordDetection} takes effect at once. Call
+     * {@link #setSticky}(id, false) or destroy the instance to release the microphone.
      *
      * @throws IllegalStateException if instance does not exist
      */
     public void stopKeywordDetection(@NonNull String instanceId) {
-        KeyWordsDetection detector = requireInstance(instanceId);
-        synchronized (detector) {
-            detector.stopListening();
+        KeywordInstance instance = requireInstance(instanceId);
+        synchronized (instance) {
+            KeywordInstance.ListenMode mode = instance.listenMode;
+            if (instance.sticky && (mode == KeywordInstance.ListenMode.MICROPHONE
+                    || mode == KeywordInstance.ListenMode.CAPTURE_HUB)) {
+                instance.paused = true;
+                Log.d(TAG, "Paused detection: " + instanceId);
+                return;
+            }
+            releaseListening(instance);
             Log.d(TAG, "Stopped detection: " + instanceId);
         }
     }
 
+    /**
+     * Make the instance sticky (continuous detection) or not. A sticky instance keeps detecting
+     * after each trigger on the same stream, and {@link #stopKeywordDetection} merely pauses it,
+     * so apps that stop and restart around every callback pay no capture restart and miss no
+     * back-to-back commands. Clearing the flag on a paused instance stops it for real.
+     * Instances created from {@link InstanceConfig}s start sticky if any config is.
+     *
+     * @throws IllegalStateException if instance does not exist
+     */
+    public void setSticky(@NonNull String instanceId, boolean sticky) {
+        KeywordInstance instance = requireInstance(instanceId);
+        synchronized (instance) {
+            instance.sticky = sticky;
+            if (!sticky && instance.paused) {
+                releaseListening(instance);
+                Log.d(TAG, "Stopped paused detection: " + instanceId);
+            }
+        }
+    }
+
+    /** Returns true if the instance is sticky; see {@link #setSticky}. */
+    public boolean isSticky(@NonNull String instanceId) {
+        return requireInstance(instanceId).sticky;
+    }
+
+    /** Returns true if the instance is a sticky instance paused by {@link #stopKeywordDetection}. */
+    public boolean isKeywordDetectionPaused(@NonNull String instanceId) {
+        return requireInstance(instanceId).paused;
+    }
+
     /**
      * Fetch the internal recording WAV path/string for an instance.
      *
+     * With shared capture the library sees the audio as pushed frames, so what it records
+     * depends on how it handles external audio. For the audio itself prefer
+     * {@link #leaseDetectionAudio}, which needs no decoding. Takes only the engine lock, so it
+     * does not wait for control operations on the instance.
+     *
      * @return recording WAV string (implementation-defined by your library)
-     * @throws IllegalStateException if instance does not exist
+     * @throws IllegalStateException if instance does not exist or its engine was unloaded
      */
     @NonNull
     public String getRecordingWav(@NonNull String instanceId) throws Exception {
-        KeyWordsDetection detector = requireInstance(instanceId);
-        synchronized (detector) {
-            return detector.getRecordingWav();
+        SharedDetector engine = requireInstance(instanceId).engine;
+        synchronized (engine) {
+            if (!engine.isLoaded()) throw new IllegalStateException("Instance engine unloaded: " + instanceId);
+            return engine.detector().getRecordingWav();
         }
     }
 
+    /**
+     * Lease the last {@code windowMs} (up to {@link PcmLease#MAX_WINDOW_MS}) of audio this
+     * instance was fed, ending with the frame captured at {@code captureTimeNanos}; pass
+     * {@link DetectionEvent#getCaptureTimeNanos()} for the audio that triggered a detection.
+     * The lease is a pooled array with a read-only ShortBuffer view; close it when done.
+     *
+     * Audio comes from the shared capture, or, for pushed audio, from the history enabled with
+     * {@link #setDetectionAudioHistoryEnabled}. Takes no lock.
+     *
+     * @return the lease; empty if the audio is not (or no longer) held
+     * @throws IllegalStateException if instance does not exist
+     */
+    @NonNull
+    public PcmLease leaseDetectionAudio(@NonNull String instanceId, long captureTimeNanos, int windowMs) {
+        return PcmLease.copyFrom(requireInstance(instanceId), captureTimeNanos, windowMs);
+    }
+
+    /** Like {@link #leaseDetectionAudio}, ending with the most recent frame. */
+    @NonNull
+    public PcmLease leaseRecentAudio(@NonNull String instanceId, int windowMs) {
+        return PcmLease.copyFrom(requireInstance(instanceId), Long.MAX_VALUE, windowMs);
+    }
+
+    /**
+     * Scan recorded files offline with the given models, as fast as the CPU allows, on a
+     * ForkJoin pool of {@code parallelism} workers. Independent of instances and of the
+     * microphone; see {@link KeywordFileScanner}.
+     *
+     * @param licenseKey applied to every detector the scan loads; null for none
+     * @return per-file detection timelines, in the order of {@code files}
+     * @throws IllegalArgumentException if the model arrays are empty or their sizes differ
+     */
+    @NonNull
+    public Future<List<KeywordFileScanner.FileResult>> scanFiles(@NonNull List<File> files,
+                                                                 @NonNull String[] modelPaths,
+                                                                 @NonNull float[] thresholds,
+                                                                 @NonNull int[] bufferCnts,
+                                                                 @Nullable String licenseKey,
+                                                                 int parallelism) {
+        KeywordFileScanner scanner = new KeywordFileScanner(appContext, modelPaths, thresholds, bufferCnts);
+        scanner.setLicenseKey(licenseKey);
+        return scanner.scan(files, parallelism);
+    }
+
     /**
      * Destroy an instance and stop listening if active.
      *
      * @throws IllegalStateException if instance does not exist
      */
     public void destroyInstance(@NonNull String instanceId) {
-        KeyWordsDetection detector = instances.remove(instanceId);
-        if (detector == null) {
+        KeywordInstance instance = instances.remove(instanceId);
+        if (instance == null) {
             throw new IllegalStateException("No instance found with ID: " + instanceId);
         }
-        synchronized (detector) {
-            try {
-                detector.stopListening();
-            } catch (Throwable ignored) {
-                // no-op
-            }
+        instance.close();
+        SharedDetector engine;
+        synchronized (instance) {
+            engine = instance.detachEngine();
         }
+        modelCache.release(engine);
         Log.d(TAG, "Destroyed instance: " + instanceId);
     }
 
@@ -335,8 +1267,468 @@ public class KeywordDetectionAPI {
     // --------------------------
     // Internal helpers
     // --------------------------
-    private KeyWordsDetection requireInstance(@NonNull String instanceId) {
-        KeyWordsDetection d = instances.get(instanceId);
+    private static ModelSpec multiSpec(@NonNull String[] modelPaths,
+                                       @NonNull float[] thresholds,
+                                       @NonNull int[] bufferCnts,
+                                       @NonNull long[] msBetweenCallback) {
+        int size = modelPaths.length;
+        if (size == 0 ||
+            thresholds.length != size ||
+            bufferCnts.length != size ||
+            msBetweenCallback.length != size) {
+            throw new IllegalArgumentException("All input arrays must have the same non-zero length.");
+        }
+        return ModelSpec.multi(modelPaths, thresholds, bufferCnts, msBetweenCallback);
+    }
+
+    private SpecFactory singleSpec(@NonNull final ModelSource model, final float threshold, final int bufferCnt) {
+        return () -> ModelSpec.single(model.resolve(appContext), threshold, bufferCnt);
+    }
+
+    private SpecFactory multiSpec(@NonNull ModelSource[] models,
+                                  @NonNull float[] thresholds,
+                                  @NonNull int[] bufferCnts,
+                                  @NonNull long[] msBetweenCallback) {
+        // Validate sizes now, resolve later (possibly on a loader thread).
+        final ModelSource[] sources = models.clone();
+        final ModelSpec shape = multiSpec(new String[sources.length], thresholds, bufferCnts, msBetweenCallback);
+        return () -> {
+            String[] paths = new String[sources.length];
+            for (int i = 0; i < sources.length; i++) {
+                paths[i] = sources[i].resolve(appContext);
+            }
+            return ModelSpec.multi(paths, shape.thresholds, shape.bufferCnts, shape.msBetweenCallbacks);
+        };
+    }
+
+    private static ModelSpec multiSpec(@NonNull List<InstanceConfig> configs) {
+        if (configs.isEmpty()) {
+            throw new IllegalArgumentException("configs must not be empty");
+        }
+        String[] paths = new String[configs.size()];
+        float[] thresholds = new float[configs.size()];
+        int[] bufferCnts = new int[configs.size()];
+        long[] msBetween = new long[configs.size()];
+        for (int i = 0; i < configs.size(); i++) {
+            InstanceConfig c = configs.get(i);
+            paths[i] = c.modelName;
+            thresholds[i] = c.threshold;
+            bufferCnts[i] = c.bufferCnt;
+            msBetween[i] = c.msBetweenCallbacks;
+        }
+        return ModelSpec.multi(paths, thresholds, bufferCnts, msBetween);
+    }
+
+    // The most demanding profile among the configs wins.
+    private static LatencyProfile profileOf(@NonNull List<InstanceConfig> configs) {
+        LatencyProfile profile = LatencyProfile.LOW_POWER;
+        for (InstanceConfig c : configs) {
+            if (c.latencyProfile.compareTo(profile) > 0) profile = c.latencyProfile;
+        }
+        return profile;
+    }
+
+    private static boolean stickyOf(@NonNull List<InstanceConfig> configs) {
+        for (InstanceConfig c : configs) {
+            if (c.sticky) return true;
+        }
+        return false;
+    }
+
+    private void reserve(@NonNull String instanceId) {
+        if (instances.containsKey(instanceId) || pendingIds.putIfAbsent(instanceId, Boolean.TRUE) != null) {
+            throw new IllegalStateException("Instance already exists: " + instanceId);
+        }
+        if (instances.containsKey(instanceId)) {
+            pendingIds.remove(instanceId);
+            throw new IllegalStateException("Instance already exists: " + instanceId);
+        }
+    }
+
+    /** Builds the spec for a new instance; may resolve model sources (file I/O), so it runs on the creating thread. */
+    private interface SpecFactory {
+        @NonNull
+        ModelSpec create() throws Exception;
+    }
+
+    private static SpecFactory fixed(@NonNull final ModelSpec spec) {
+        return () -> spec;
+    }
+
+    private void createNow(@NonNull String instanceId,
+                           @NonNull SpecFactory spec,
+                           @NonNull LatencyProfile profile,
+                           boolean sticky) throws Exception {
+        reserve(instanceId);
+        try {
+            createReserved(instanceId, spec, profile, sticky, false, null);
+        } finally {
+            pendingIds.remove(instanceId);
+        }
+    }
+
+    @NonNull
+    private Future<Void> submitCreate(@NonNull String instanceId,
+                                      @NonNull SpecFactory spec,
+                                      @NonNull LatencyProfile profile,
+                                      boolean sticky,
+                                      boolean warmUp) {
+        reserve(instanceId);
+        CreateTask task = new CreateTask(new Creation(instanceId, spec, profile, sticky, warmUp));
+        try {
+            LOADER.execute(task);
+        } catch (RuntimeException e) {
+            pendingIds.remove(instanceId);
+            throw e;
+        }
+        return task;
+    }
+
+    // Caller has reserved instanceId. If owner is cancelled by the time loading finishes, the instance is dropped.
+    private void createReserved(@NonNull String instanceId,
+                                @NonNull SpecFactory specFactory,
+                                @NonNull LatencyProfile profile,
+                                boolean sticky,
+                                boolean warmUp,
+                                @Nullable CreateTask owner) throws Exception {
+        long t0 = System.nanoTime();
+        ModelSpec spec = specFactory.create();
+        SharedDetector engine = modelCache.acquire(appContext, spec, profile.fastSession, modelSharing);
+        try {
+            if (warmUp) engine.warmUp();
+        } catch (Exception e) {
+            modelCache.release(engine);
+            throw e;
+        }
+        if (owner != null && !owner.commit()) {
+            modelCache.release(engine);
+            return;
+        }
+        KeywordInstance instance = new KeywordInstance(instanceId, engine, spec, profile, detectionHandler);
+        instance.sticky = sticky;
+        instances.put(instanceId, instance);
+        Log.d(TAG, "Created " + (spec.multi ? "multi-model" : "single-model") + " instance: " + instanceId
+                + " (" + spec + ", " + profile + ", " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0) + " ms)");
+    }
+
+    private final class Creation implements Callable<Void> {
+        final String instanceId;
+        final SpecFactory spec;
+        final LatencyProfile profile;
+        final boolean sticky;
+        final boolean warmUp;
+        volatile CreateTask owner;
+
+        Creation(@NonNull String instanceId,
+                 @NonNull SpecFactory spec,
+                 @NonNull LatencyProfile profile,
+                 boolean sticky,
+                 boolean warmUp) {
+            this.instanceId = instanceId;
+            this.spec = spec;
+            this.profile = profile;
+            this.sticky = sticky;
+            this.warmUp = warmUp;
+        }
+
+        @Override
+        public Void call() throws Exception {
+            createReserved(instanceId, spec, profile, sticky, warmUp, owner);
+            return null;
+        }
+    }
+
+    /**
+     * Async creation; releases the ID reservation when it finishes or is cancelled before running.
+     * Once the instance is about to be registered the task can no longer be cancelled, so a
+     * cancelled future never leaves an instance behind.
+     */
+    private final class CreateTask extends FutureTask<Void> {
+        private final String instanceId;
+        private boolean committed; // guarded by this
+
+        CreateTask(@NonNull Creation creation) {
+            super(creation);
+            this.instanceId = creation.instanceId;
+            creation.owner = this;
+        }
+
+        /** Called just before the instance is registered; false if cancelled first. */
+        synchronized boolean commit() {
+            if (isCancelled()) return false;
+            committed = true;
+            return true;
+        }
+
+        @Override
+        public synchronized boolean cancel(boolean mayInterruptIfRunning) {
+            return !committed && super.cancel(mayInterruptIfRunning);
+        }
+
+        @Override
+        protected void done() {
+            pendingIds.remove(instanceId);
+        }
+    }
+
+    private static ExecutorService newLoaderExecutor() {
+        int threads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads,
+                30L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactory() {
+                    private final AtomicInteger n = new AtomicInteger();
+
+                    @Override
+                    public Thread newThread(@NonNull Runnable r) {
+                        Thread t = new Thread(r, "kwd-load-" + n.incrementAndGet());
+                        t.setDaemon(true);
+                        return t;
+                    }
+                });
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    private static InstanceMetrics snapshot(@NonNull KeywordInstance instance) {
+        return instance.metrics.snapshot(instance.queuedFrames(), instance.droppedFrames(), instance.droppedEvents.get());
+    }
+
+    // Bridge library callback (fanned out by the engine) -> listener queues. Runs on the inference thread.
+    private void onDetected(@NonNull KeywordInstance instance, @NonNull String modelName) {
+        // A shared engine fans out to every attached instance, including ones not listening.
+        if (instance.paused || instance.listenMode == KeywordInstance.ListenMode.NONE) return;
+        long nanos = System.nanoTime();
+        int idx = instance.spec.indexOf(modelName);
+        if (!instance.metrics.admitDetection(idx, nanos)) return;
+        long wall = System.currentTimeMillis();
+        for (DetectionDispatcher d : instance.dispatchers) {
+            if (!d.post(instance, modelName, idx, nanos, wall)) instance.droppedEvents.incrementAndGet();
+        }
+        DetectionDispatcher g = globalDispatcher;
+        if (g != null && !g.post(instance, modelName, idx, nanos, wall)) instance.droppedEvents.incrementAndGet();
+    }
+
+    /** Default executor for the global listener: one daemon thread shared by all API objects. */
+    private static final class CallbackExecutor {
+        static final ExecutorService INSTANCE = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "kwd-callbacks");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // Caller holds the instance lock.
+    private void startListening(@NonNull KeywordInstance instance,
+                                @NonNull KeywordInstance.ListenMode mode,
+                                float threshold) throws OrtException {
+        releaseListening(instance);
+        instance.markFrame(-1L, 0L);
+        if (!instance.engine.tryAcquireListening(mode, threshold, instance.profile())) {
+            // Another instance listens on the shared engine in a way this one cannot join.
+            movePrivate(instance);
+            instance.engine.acquireListening(mode, threshold, instance.profile());
+        }
+        instance.listenMode = mode;
+        instance.listenThreshold = threshold;
+    }
+
+    // Caller holds the instance lock; the instance is not listening.
+    private void movePrivate(@NonNull KeywordInstance instance) throws OrtException {
+        ModelSpec spec = instance.spec;
+        try {
+            commitEngine(instance, modelCache.acquire(appContext, spec, instance.profile().fastSession, false), spec);
+        } catch (OrtException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException("Loading a private detector for " + instance.instanceId + " failed", e);
+        }
+        Log.d(TAG, "Moved " + instance.instanceId + " to a private detector for " + spec);
+    }
+
+    // Caller holds the instance lock.
+    private static void releaseListening(@NonNull KeywordInstance instance) {
+        if (instance.listenMode != KeywordInstance.ListenMode.NONE) {
+            instance.engine.releaseListening();
+            instance.listenMode = KeywordInstance.ListenMode.NONE;
+        }
+        instance.paused = false;
+    }
+
+    // Caller holds the instance lock.
+    // Caller holds the instance lock and one cache reference to fresh, which this consumes.
+    private void commitEngine(@NonNull KeywordInstance instance,
+                              @NonNull SharedDetector fresh,
+                              @NonNull ModelSpec spec) throws Exception {
+        SharedDetector old = instance.engine;
+        KeywordInstance.ListenMode listenMode = instance.listenMode;
+        if (spec.parallel && listenMode == KeywordInstance.ListenMode.MICROPHONE) {
+            // Parallel detectors have no library microphone; keep listening on the shared capture.
+            instance.listenMode = KeywordInstance.ListenMode.CAPTURE_HUB;
+        }
+        try {
+            if (fresh != old && fresh.cached && instance.listenMode != KeywordInstance.ListenMode.NONE
+                    && !fresh.canJoinListening(instance.listenMode, instance.listenThreshold)) {
+                // Other instances listen on the shared engine in a way this one cannot join.
+                SharedDetector shared = fresh;
+                fresh = null;
+                modelCache.release(shared);
+                fresh = modelCache.acquire(appContext, spec, instance.profile().fastSession, false);
+            }
+            try {
+                instance.adopt(fresh, spec);
+            } catch (Exception e) {
+                // adopt() fails after the move only if the library microphone could not be reopened
+                modelCache.release(instance.engine == fresh ? old : fresh);
+                throw e;
+            }
+        } catch (Exception e) {
+            if (instance.engine == old) instance.listenMode = listenMode;
+            throw e;
+        }
+        modelCache.release(old);
+    }
+
+    /** Computes the target spec of a model swap from the instance's current one. */
+    private interface SpecChange {
+        @NonNull
+        ModelSpec apply(@NonNull ModelSpec current) throws Exception;
+    }
+
+    private enum SwapResult { DONE, SHARED, STALE }
+
+    /** Attempts before a swap racing other model changes on the same instance gives up. */
+    private static final int SWAP_ATTEMPTS = 3;
+
+    private static SpecChange fixedChange(@NonNull final ModelSpec spec) {
+        return current -> spec;
+    }
+
+    private SpecChange singleChange(@NonNull ModelSource model, float threshold, int bufferCnt) {
+        final SpecFactory factory = singleSpec(model, threshold, bufferCnt);
+        return current -> factory.create();
+    }
+
+    private static SpecChange entryChange(final int index, @NonNull final String modelPath,
+                                          final float threshold, final int bufferCnt) {
+        return current -> current.withModel(index, modelPath, threshold, bufferCnt);
+    }
+
+    @NonNull
+    private static Future<Void> completed() {
+        FutureTask<Void> done = new FutureTask<>(() -> null);
+        done.run();
+        return done;
+    }
+
+    @NonNull
+    private Future<Void> submitSwap(@NonNull final KeywordInstance instance, @NonNull final SpecChange change) {
+        FutureTask<Void> task = new FutureTask<>(() -> {
+            hotSwap(instance, change);
+            return null;
+        });
+        LOADER.execute(task);
+        return task;
+    }
+
+    /**
+     * Load and warm the target without the instance lock, then commit under it if the instance's
+     * model did not change meanwhile (otherwise start over from the new model).
+     */
+    private void hotSwap(@NonNull KeywordInstance instance, @NonNull SpecChange change) throws Exception {
+        long t0 = System.nanoTime();
+        for (int attempt = 1; ; attempt++) {
+            ModelSpec base;
+            LatencyProfile profile;
+            SharedDetector engine;
+            synchronized (instance) {
+                requireLive(instance);
+                base = instance.spec;
+                profile = instance.profile();
+                engine = instance.engine;
+            }
+            ModelSpec target = change.apply(base);
+            if (target.equals(base)) return;
+            int lane = base.changedLane(target);
+            SwapResult result = lane >= 0 ? swapLane(instance, base, engine, target, lane) : SwapResult.SHARED;
+            if (result == SwapResult.SHARED) result = swapEngine(instance, base, profile, target, profile);
+            if (result == SwapResult.DONE) {
+                Log.d(TAG, "Swapped model of " + instance.instanceId + " -> " + target
+                        + (lane >= 0 ? " (lane " + lane + ")" : "") + " in "
+                        + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0) + " ms");
+                return;
+            }
+            if (attempt == SWAP_ATTEMPTS) {
+                throw new IllegalStateException("Model of " + instance.instanceId + " kept changing during the swap");
+            }
+        }
+    }
+
+    private SwapResult swapLane(@NonNull KeywordInstance instance,
+                                @NonNull ModelSpec base,
+                                @NonNull SharedDetector engine,
+                                @NonNull ModelSpec target,
+                                int lane) throws Exception {
+        SharedDetector.PendingLane pending = engine.loadLane(appContext, target, lane);
+        synchronized (instance) {
+            requireLive(instance);
+            if (instance.spec != base || instance.engine != engine) return SwapResult.STALE;
+            if (!modelCache.replaceLane(engine, pending, target)) return SwapResult.SHARED;
+            instance.metrics.onSpecChanged(target);
+            instance.spec = target;
+            return SwapResult.DONE;
+        }
+    }
+
+    /**
+     * Load and warm a detector for {@code target} with {@code targetProfile}'s session options
+     * without the instance lock, then commit it and the profile under the lock if the instance
+     * is still on {@code base} and {@code profile}.
+     */
+    private SwapResult swapEngine(@NonNull KeywordInstance instance,
+                                  @NonNull ModelSpec base,
+                                  @NonNull LatencyProfile profile,
+                                  @NonNull ModelSpec target,
+                                  @NonNull LatencyProfile targetProfile) throws Exception {
+        SharedDetector fresh = modelCache.acquire(appContext, target, targetProfile.fastSession, modelSharing);
+        try {
+            fresh.warmUp();
+            synchronized (instance) {
+                requireLive(instance);
+                if (instance.spec == base && instance.profile() == profile) {
+                    SharedDetector committed = fresh;
+                    SharedDetector previous = instance.engine;
+                    fresh = null;
+                    instance.setProfile(targetProfile);
+                    try {
+                        commitEngine(instance, committed, target);
+                    } catch (Exception e) {
+                        if (instance.engine == previous) instance.setProfile(profile);
+                        throw e;
+                    }
+                    return SwapResult.DONE;
+                }
+            }
+            return SwapResult.STALE;
+        } finally {
+            if (fresh != null) modelCache.release(fresh);
+        }
+    }
+
+    private static void checkModelIndex(@NonNull KeywordInstance instance, int index) {
+        if (index < 0 || index >= instance.spec.size()) {
+            throw new IllegalArgumentException("Model index " + index + " out of range for " + instance.instanceId);
+        }
+    }
+
+    private void requireLive(@NonNull KeywordInstance instance) {
+        if (instances.get(instance.instanceId) != instance) {
+            throw new IllegalStateException("Instance destroyed: " + instance.instanceId);
+        }
+    }
+
+    private KeywordInstance requireInstance(@NonNull String instanceId) {
+        KeywordInstance d = instances.get(instanceId);
         if (d == null) {
             throw new IllegalStateException("Instance not found: " + instanceId);
         }
@@ -354,11 +1746,21 @@ final KeywordDetectionAPI api = new KeywordDetectionAPI(appContext);
 
 // Optional: register one global listener for ALL instances
 api.setOnKeywordDetectionListener((instanceId, phrase) -> {
-    // NOTE: This may be invoked on a background thread.
+    // NOTE: This is invoked on a background callback thread.
     // If you need to touch UI, post to the main thread.
     Log.d("KWDemo", "Detected on " + instanceId + ": " + phrase);
 });
 
+// Or, after creating an instance (step 3), per-instance listeners on an executor of your choice:
+api.addOnKeywordDetectionListener("multi_model_instance",
+        ContextCompat.getMainExecutor(appContext),
+        (instanceId, phrase) -> statusView.setText(phrase));
+
+// Or DetectionEvents, for latency and threshold tuning (events are pooled; copy() to keep one):
+api.addOnDetectionEventListener("multi_model_instance", executor, event ->
+        Log.d("KWDemo", event.getPhrase() + " frame=" + event.getFrameIndex()
+                + " latencyMs=" + event.getLatencyNanos() / 1_000_000L));
+
 ---------------------------------------
 2) Build your instance configuration(s)
 ---------------------------------------
@@ -368,7 +1770,7 @@ configs.add(new KeywordDetectionAPI.InstanceConfig(
         "hey_lookdeep.dm", // change to the dm file you got from davoice
         0.99f, // Threshold
         4,     // Buffer_cnt
-        false,     // sticky (kept for parity; the library constructor doesn't use it)
+        false,     // sticky (true: stopKeywordDetection pauses instead of releasing the mic)
         1000L      // msBetweenCallbacks (debounce between repeated detections)
 ));
 configs.add(new KeywordDetectionAPI.InstanceConfig("need_help_now.dm", 0.99f, 4, false, 1000L));
@@ -383,6 +1785,16 @@ api.createInstanceMulti("multi_model_instance", configs);
 // Or SINGLE-model:
 api.createInstance("single_model_instance", "hey_lookdeep.dm", 0.99f, 4);
 
+// Or create off the main thread: several async creations load in parallel, and warmUp=true
+// runs silence through each session so the first real frame is not slowed by ORT first-run cost.
+Future<Void> a = api.createInstanceMultiAsync("multi_model_instance", configs, true);
+Future<Void> b = api.createInstanceAsync("single_model_instance", "hey_lookdeep.dm", 0.99f, 4,
+        KeywordDetectionAPI.LatencyProfile.BALANCED, true);
+a.get(); b.get(); // rethrows creation failures
+
+// Latency profile: pass one at creation (or on InstanceConfig), or switch a live instance:
+api.setLatencyProfile("multi_model_instance", KeywordDetectionAPI.LatencyProfile.LOW_LATENCY);
+
 ---------------------------------------
 4) (Optional) Start a foreground service for the instance
 ---------------------------------------
@@ -404,6 +1816,11 @@ if (!licensed) {
 ---------------------------------------
 api.startKeywordDetection("multi_model_instance", 0.99f);
 
+// Or feed your own audio: fetch the sink once, then push from the capture thread.
+api.startKeywordDetectionExternal("multi_model_instance", 0.99f);
+FrameSink sink = api.getFrameSink("multi_model_instance");
+sink.push(pcmFrame, pcmFrame.length); // never blocks; see sink.getOverrunCount()
+
 ---------------------------------------
 7) Receive detections
 ---------------------------------------
@@ -424,12 +1841,22 @@ api.stopKeywordDetection("multi_model_instance");
 
 ---------------------------------------
 10) Swap models at runtime (single-model semantics)
+    (models can also come from files or mapped buffers, e.g. downloaded at runtime:
+     api.replaceKeywordDetectionModel(id, ModelSource.file(new File(dir, "hey_sky.dm")), 0.98f, 4);)
+    (with setModelSharingEnabled(true), instances created with the same models and profile
+     share one loaded detector while they listen to the same source at the same threshold;
+     see KeywordDetectionAPI.getModelCacheStats())
 ---------------------------------------
 api.replaceKeywordDetectionModel("multi_model_instance",
         "another_model.dm",
         0.98f,
         4);
 
+// The old model keeps listening while the new one loads and warms up; to not block the caller:
+Future<Void> swap = api.replaceKeywordDetectionModelAsync("multi_model_instance", "another_model.dm", 0.98f, 4);
+// Replace one entry of a multi-model set (in PARALLEL mode only that model is loaded):
+api.replaceKeywordDetectionModelAt("multi_model_instance", 1, "hey_sky.dm", 0.98f, 4);
+
 ---------------------------------------
 11) Destroy when done (or app shutdown)
 ---------------------------------------
@@ -438,13 +1865,47 @@ api.destroyInstance("multi_model_instance");
 api.destroyAll();
 
 NOTES:
-- The listener is GLOBAL for simplicity. You get the instanceId for routing.
-  If you need per-instance listeners, you can easily extend this class to store
-  a Map<instanceId, OnKeywordDetectionListener> in parallel.
-- Callbacks may arrive on a background thread. Post to main if touching UI.
-- The “sticky” flag in InstanceConfig is carried over from your TS interface for parity,
-  but your current library constructor doesn’t consume it. If you need it, wire it into
-  your library and add a corresponding parameter or setter.
+- The global listener gets every instance's detections with the instanceId for routing;
+  addOnKeywordDetectionListener() registers per-instance listeners on your executor.
+  Listeners never run on the inference thread; a listener that falls behind loses events
+  (counted by getDroppedDetectionEvents()) rather than stalling detection.
+- Callbacks arrive on a background thread unless you pass a main-thread executor.
+- Sticky (InstanceConfig.sticky or api.setSticky(id, true)): detection keeps running on the
+  same stream after each trigger, and stopKeywordDetection only pauses delivery, so a
+  stop/start around each callback costs nothing and back-to-back commands are not missed.
+  api.setSticky(id, false) (or destroyInstance) releases the microphone.
 - Threshold in startKeywordDetection(...) lets you override at runtime.
+- api.setSharedCaptureEnabled(true) makes startKeywordDetection(...) read one shared microphone
+  recorder for all instances (16 kHz, 80 ms frames, android-voice-processor) instead of each
+  detector opening the microphone itself (the default).
+- Wake-then-verify: with shared capture on, SpeakerIdNativeAPI's
+  createAndVerifyEmbeddingsFromSharedCapture(sid, clusterId, 1000) scores the audio that
+  contained the wake word, straight from the capture ring; SharedAudioFrontEnd.subscribe(...)
+  gives any other pipeline the same hops without a second recorder.
+  com.davoice.speakeridapi.WakeVerifyPipeline does this for every detection: it verifies the
+  exact triggering window (copyDetectionAudio) and emits one event with the speaker score and
+  a latency breakdown.
+- Post-detection audio: try (PcmLease pcm = api.leaseDetectionAudio(id, ev.getCaptureTimeNanos(), 1500)) { ... }
+  gives the triggering window as a read-only ShortBuffer (no WAV parsing); new
+  WavStreamWriter(file, 16000) writes it, or any stream, to disk on a background thread.
+- Offline QA: api.scanFiles(wavFiles, models, thresholds, bufferCnts, licenseKey, 8).get()
+  runs the models over recorded 16 kHz mono WAV/PCM files far faster than real time and
+  returns a detection timeline per file; KeywordFileScanner does the same without an API
+  object (e.g. headless on a JVM).
 - Foreground service calls are pass-throughs to your library methods.
+- Several wake words: api.setExecutionMode(id, KeywordDetectionAPI.ExecutionMode.PARALLEL) runs
+  each model of a multi-model instance on its own core; detections and debounce stay per model.
+  Lower per-frame latency, but each model runs its own front end and session (more CPU and memory).
+- Battery: api.setVoiceActivityGate(id, true) skips inference on silence (keeping a short
+  pre-roll so accuracy holds); getInstanceMetrics(id).skipRatio() shows the saving.
+- Metrics: api.getInstanceMetrics(id) returns frames processed, pushNextFrame time
+  percentiles, detections per model, debounce-suppressed callbacks, queue depth and drops.
+  For periodic logging: api.setMetricsReporter((id, m) -> Log.i("KWDemo", id + " " + m), 60, TimeUnit.SECONDS);
+- msBetweenCallbacks is passed to the multi-model library detector, which debounces itself;
+  single-model and parallel instances (whose detectors take no debounce) are debounced by this
+  wrapper. suppressedCallbacks counts what the wrapper drops, not what the library withholds.
+- Live tuning: api.setModelEnabled(id, i, false) takes effect with the next detection, as does
+  api.setModelDebounce(id, i, ms) unless a multi-model detector must reload (its Future tells);
+  api.updateModelParameters(id, params) also changes thresholds, reloading only what it must in
+  the background (getModelParameters(id) to read).
 */
@@ -0,0 +1,208 @@
+package com.davoice.keywordspotting;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * WavStreamWriter
+ *
+ * Streams mono PCM16 into a WAV file on a background thread. {@link #write} converts the samples
+ * into one of a few pooled direct buffers and returns; the writer thread drains them to a
+ * FileChannel. The header is written with placeholder sizes and patched on {@link #close()}.
+ *
+ * The producer never blocks on disk: when every buffer is queued (the disk is slower than the
+ * audio), samples are dropped and counted ({@link #getDroppedSamples()}) rather than stalling
+ * the audio thread.
+ *
+ * Thread-safety: write from one thread at a time; close from any thread.
+ */
+public final class WavStreamWriter implements Closeable {
+
+    private static final String TAG = "KeywordDetectionAPI";
+
+    private static final int HEADER_BYTES = 44;
+    /** Samples per pooled buffer (256 ms at 16 kHz) and buffers per writer (~2 s of slack). */
+    private static final int BUFFER_SAMPLES = 4096;
+    private static final int BUFFERS = 8;
+    private static final ByteBuffer END = ByteBuffer.allocate(0);
+
+    private final File file;
+    private final int sampleRate;
+    private final RandomAccessFile raf;
+    private final FileChannel channel;
+    private final ArrayBlockingQueue<ByteBuffer> free = new ArrayBlockingQueue<>(BUFFERS);
+    private final LinkedBlockingQueue<ByteBuffer> pending = new LinkedBlockingQueue<>();
+    private final AtomicLong droppedSamples = new AtomicLong();
+    private final Thread thread;
+    private volatile boolean closed;
+    private volatile IOException failure;
+    private long dataBytes; // writer thread, then close()
+
+    /**
+     * Create (or truncate) {@code file} and start the writer thread.
+     *
+     * @throws IOException if the file cannot be opened
+     */
+    public WavStreamWriter(@NonNull File file, int sampleRate) throws IOException {
+        this.file = file;
+        this.sampleRate = sampleRate;
+        this.raf = new RandomAccessFile(file, "rw");
+        this.channel = raf.getChannel();
+        try {
+            channel.truncate(0);
+            ByteBuffer header = header(0L);
+            while (header.hasRemaining()) channel.write(header);
+        } catch (IOException e) {
+            raf.close();
+            throw e;
+        }
+        for (int i = 0; i < BUFFERS; i++) {
+            free.offer(ByteBuffer.allocateDirect(BUFFER_SAMPLES * 2).order(ByteOrder.LITTLE_ENDIAN));
+        }
+        thread = new Thread(this::drain, "kwd-wav-" + file.getName());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Queue {@code length} samples. Never blocks on I/O.
+     *
+     * @return false if some samples were dropped (writer closed, failed or behind)
+     */
+    public boolean write(@NonNull short[] pcm, int offset, int length) {
+        int done = 0;
+        while (done < length) {
+            ByteBuffer buf = closed || failure != null ? null : free.poll();
+            if (buf == null) {
+                droppedSamples.addAndGet(length - done);
+                return false;
+            }
+            int n = Math.min(length - done, BUFFER_SAMPLES);
+            buf.clear();
+            buf.asShortBuffer().put(pcm, offset + done, n);
+            buf.limit(n * 2);
+            pending.offer(buf);
+            done += n;
+        }
+        return true;
+    }
+
+    /** Queue the buffer's remaining samples (position/limit are untouched). */
+    public boolean write(@NonNull ShortBuffer pcm) {
+        ShortBuffer src = pcm.duplicate();
+        while (src.hasRemaining()) {
+            ByteBuffer buf = closed || failure != null ? null : free.poll();
+            if (buf == null) {
+                droppedSamples.addAndGet(src.remaining());
+                return false;
+            }
+            int n = Math.min(src.remaining(), BUFFER_SAMPLES);
+            ShortBuffer chunk = src.slice();
+            chunk.limit(n);
+            buf.clear();
+            buf.asShortBuffer().put(chunk);
+            buf.limit(n * 2);
+            src.position(src.position() + n);
+            pending.offer(buf);
+        }
+        return true;
+    }
+
+    /** Samples not written because the writer was behind, failed or closed. */
+    public long getDroppedSamples() {
+        return droppedSamples.get();
+    }
+
+    @NonNull
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Write everything queued, patch the header and close the file. Blocks until done.
+     *
+     * @throws IOException if any write failed
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+        }
+        pending.offer(END);
+        boolean interrupted = false;
+        while (thread.isAlive()) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        try {
+            if (failure == null) {
+                ByteBuffer header = header(dataBytes);
+                channel.position(0);
+                while (header.hasRemaining()) channel.write(header);
+                channel.force(false);
+            }
+        } finally {
+            raf.close();
+            if (interrupted) Thread.currentThread().interrupt();
+        }
+        if (failure != null) throw failure;
+    }
+
+    // Writer thread.
+    private void drain() {
+        while (true) {
+            ByteBuffer buf;
+            try {
+                buf = pending.take();
+            } catch (InterruptedException e) {
+                continue; // only close() ends the writer, via END
+            }
+            if (buf == END) return;
+            try {
+                if (failure == null) {
+                    while (buf.hasRemaining()) dataBytes += channel.write(buf);
+                }
+            } catch (IOException e) {
+                failure = e;
+                Log.w(TAG, "Writing " + file + " failed: " + e.getMessage());
+            } finally {
+                free.offer(buf);
+            }
+        }
+    }
+
+    private ByteBuffer header(long dataLen) {
+        long riffLen = Math.min(0xFFFFFFFFL, dataLen + HEADER_BYTES - 8);
+        long dataField = Math.min(0xFFFFFFFFL, dataLen);
+        ByteBuffer h = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        h.put(new byte[]{'R', 'I', 'F', 'F'}).putInt((int) riffLen)
+                .put(new byte[]{'W', 'A', 'V', 'E'})
+                .put(new byte[]{'f', 'm', 't', ' '}).putInt(16)
+                .putShort((short) 1)                 // PCM
+                .putShort((short) 1)                 // mono
+                .putInt(sampleRate)
+                .putInt(sampleRate * 2)              // byte rate
+                .putShort((short) 2)                 // block align
+                .putShort((short) 16)                // bits per sample
+                .put(new byte[]{'d', 'a', 't', 'a'}).putInt((int) dataField);
+        h.flip();
+        return h;
+    }
+}
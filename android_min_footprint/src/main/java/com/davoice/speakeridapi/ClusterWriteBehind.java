@@ -0,0 +1,201 @@
+package com.davoice.speakeridapi;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.davoice.speakerid.SpeakerIdApi;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ClusterWriteBehind
+ *
+ * Write-behind queue for cluster enrollment of one SpeakerIdApi instance. The library computes
+ * the embedding and persists cluster and mean inside one call; queuing the audio lets the
+ * enrolling thread return at once, and a background flush applies the queued pushes in order. A
+ * flush runs {@code maxDelayMs} after the first queued push, as soon as {@code maxPending} are
+ * queued, or when {@link #flushLocked} is called (before any operation that reads or replaces
+ * the instance's targets). The background flush takes the instance lock once per push, so other
+ * callers wait for at most one library call.
+ *
+ * Every push is applied. Each one is still a separate synchronous library call that embeds and
+ * writes cluster and mean, so writes are neither batched nor made atomic (the library writes the
+ * files, not this queue); only the thread that pays for them changes. When
+ * {@code 4 * maxPending} pushes are queued, {@link #push} refuses the next one and the caller
+ * applies the queue itself (back-pressure), so memory stays bounded without losing audio.
+ *
+ * Pushes still queued when the process dies are lost. {@link #close} applies the queue and then
+ * rejects further pushes, so nothing runs against a closed instance.
+ *
+ * Lock order: instance (api) monitor, then this. The caller of {@link #push} holds the api monitor.
+ */
+final class ClusterWriteBehind {
+
+    private static final String TAG = "SpeakerIdNativeAPI";
+
+    /** Queued pushes, as a multiple of maxPending, at which {@link #push} refuses more. */
+    private static final int MAX_QUEUED_FACTOR = 4;
+
+    private static final class Pending {
+        final int clusterId;
+        final short[] pcm;
+        final int length;
+
+        Pending(int clusterId, @NonNull short[] pcm, int length) {
+            this.clusterId = clusterId;
+            this.pcm = pcm;
+            this.length = length;
+        }
+    }
+
+    private final String instanceId;
+    private final SpeakerIdApi api;
+    final long maxDelayMs;
+    final int maxPending;
+
+    // Guarded by this.
+    private final ArrayDeque<Pending> pending = new ArrayDeque<>();
+    private final ArrayDeque<short[]> free = new ArrayDeque<>();
+    private boolean timerArmed;
+    private boolean flushQueued;
+    private boolean closed;
+
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong failedPushes = new AtomicLong();
+
+    ClusterWriteBehind(@NonNull String instanceId, @NonNull SpeakerIdApi api, long maxDelayMs, int maxPending) {
+        this.instanceId = instanceId;
+        this.api = api;
+        this.maxDelayMs = Math.max(0L, maxDelayMs);
+        this.maxPending = Math.max(1, maxPending);
+    }
+
+    /**
+     * Queue one push; the samples are copied. Does not wait for the library or storage.
+     *
+     * @return false if the queue is full and nothing was queued: the caller, holding the api
+     *         monitor, applies the queue with {@link #flushLocked} and then its own push
+     * @throws IllegalStateException if the queue was closed
+     */
+    synchronized boolean push(int clusterId, @NonNull short[] pcm, int length) {
+        if (closed) throw new IllegalStateException("Instance destroyed: " + instanceId);
+        if (pending.size() >= maxPending * MAX_QUEUED_FACTOR) return false;
+        short[] buf = take(length);
+        System.arraycopy(pcm, 0, buf, 0, length);
+        pending.add(new Pending(clusterId, buf, length));
+        if (pending.size() >= maxPending) {
+            if (!flushQueued) {
+                flushQueued = true;
+                Flusher.INSTANCE.execute(this::flush);
+            }
+        } else if (!timerArmed) {
+            timerArmed = true;
+            Flusher.INSTANCE.schedule(this::flush, maxDelayMs, TimeUnit.MILLISECONDS);
+        }
+        return true;
+    }
+
+    synchronized int pendingCount() {
+        return pending.size();
+    }
+
+    long flushCount() {
+        return flushes.get();
+    }
+
+    /** Pushes the library threw on; logged and dropped. */
+    long failedPushCount() {
+        return failedPushes.get();
+    }
+
+    /** Background flush: apply the queue one push per hold of the api monitor. */
+    void flush() {
+        synchronized (this) {
+            timerArmed = false;
+            flushQueued = false;
+        }
+        boolean any = false;
+        for (;;) {
+            synchronized (api) {
+                Pending p = poll();
+                if (p == null) break;
+                apply(p);
+                any = true;
+            }
+        }
+        if (any) flushes.incrementAndGet();
+    }
+
+    /** Apply every queued push, oldest first. Caller holds the api monitor. */
+    void flushLocked() {
+        Pending p = poll();
+        if (p == null) return;
+        do {
+            apply(p);
+        } while ((p = poll()) != null);
+        flushes.incrementAndGet();
+    }
+
+    /** Apply the queue and reject later pushes. Caller holds the api monitor, before closing the api. */
+    void close() {
+        flushLocked();
+        synchronized (this) {
+            closed = true;
+        }
+    }
+
+    @Nullable
+    private synchronized Pending poll() {
+        return closed ? null : pending.poll();
+    }
+
+    // Caller holds the api monitor.
+    private void apply(@NonNull Pending p) {
+        try {
+            api.createAndPushEmbeddingsToCluster(p.clusterId, p.pcm, p.length);
+        } catch (Throwable t) {
+            failedPushes.incrementAndGet();
+            Log.w(TAG, "Queued cluster push failed for " + instanceId + ": " + t.getMessage());
+        }
+        synchronized (this) {
+            recycle(p);
+        }
+    }
+
+    // Caller holds this.
+    private void recycle(@NonNull Pending p) {
+        if (free.size() < maxPending) free.add(p.pcm);
+    }
+
+    // Caller holds this.
+    @NonNull
+    private short[] take(int length) {
+        for (int i = free.size(); i > 0; i--) {
+            short[] a = free.poll();
+            if (a.length == length) return a;
+            free.add(a);
+        }
+        return new short[length];
+    }
+
+    /** One daemon thread shared by all write-behind queues of the process. */
+    private static final class Flusher {
+        static final ScheduledExecutorService INSTANCE = newFlusher();
+
+        private static ScheduledExecutorService newFlusher() {
+            ScheduledThreadPoolExecutor e = new ScheduledThreadPoolExecutor(1, r -> {
+                Thread t = new Thread(r, "sid-write-behind");
+                t.setDaemon(true);
+                return t;
+            });
+            e.setRemoveOnCancelPolicy(true);
+            return e;
+        }
+    }
+}
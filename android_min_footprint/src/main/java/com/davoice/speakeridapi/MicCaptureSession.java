@@ -0,0 +1,159 @@
+package com.davoice.speakeridapi;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.davoice.keywordspotting.SharedAudioFrontEnd;
+import com.davoice.speakerid.VerificationResult;
+
+import java.util.Map;
+import java.util.concurrent.FutureTask;
+
+/**
+ * MicCaptureSession
+ *
+ * One asynchronous microphone onboarding or verification of a SpeakerIdApi instance, fed hop by
+ * hop from the shared capture front end instead of the library recording on the caller's thread.
+ * Each hop goes to the library's streaming call on the tap's thread; only streaming calls that
+ * need the instance lock take it, and only for that one block, so the instance stays usable
+ * while capture runs.
+ *
+ * Voiced time is counted from the energy the front end computes for every hop. The session ends
+ * when the library returns a result, when {@code targetVoicedSec} of voiced audio has been fed,
+ * or {@code maxMillis} after the first hop; it then finishes the stream and completes with that
+ * result. Cancelling stops capture and discards the stream.
+ *
+ * Lock order: this session, then the instance (api) monitor.
+ */
+abstract class MicCaptureSession<T> extends FutureTask<T> {
+
+    private static final String TAG = "SpeakerIdNativeAPI";
+
+    /** Hop energy above which a hop counts as voiced. */
+    static final float VOICED_DBFS = -45f;
+
+    /** Least time between two progress calls without a new partial result. */
+    private static final long PROGRESS_INTERVAL_NANOS = 250_000_000L;
+
+    final String instanceId;
+    private final float targetVoicedSec;
+    private final long maxNanos;
+    private final @Nullable SpeakerIdNativeAPI.OnCaptureProgressListener listener;
+    private final Map<String, MicCaptureSession<?>> registry;
+
+    // Guarded by this.
+    private final PcmScratch hop = new PcmScratch();
+    private @Nullable SharedAudioFrontEnd.Tap tap;
+    private long firstHopNanos = -1L;
+    private long lastProgressNanos;
+    private long voicedSamples;
+    private @Nullable VerificationResult partial;
+    private boolean freshPartial;
+
+    MicCaptureSession(@NonNull String instanceId,
+                      float targetVoicedSec,
+                      long maxMillis,
+                      @Nullable SpeakerIdNativeAPI.OnCaptureProgressListener listener,
+                      @NonNull Map<String, MicCaptureSession<?>> registry) {
+        super(() -> null); // never run; completed by the hops
+        this.instanceId = instanceId;
+        this.targetVoicedSec = targetVoicedSec;
+        this.maxNanos = Math.max(0L, maxMillis) * 1_000_000L;
+        this.listener = listener;
+        this.registry = registry;
+    }
+
+    /** Feed one block to the library's stream; non-null ends the session with that result. */
+    @Nullable
+    abstract T feed(@NonNull short[] block) throws Exception;
+
+    /** Finish the library's stream and return its result. */
+    @Nullable
+    abstract T finish() throws Exception;
+
+    /** Record a running verification result from {@link #feed}; it is reported with progress. */
+    final void reportPartial(@NonNull VerificationResult r) {
+        partial = r;
+        freshPartial = true;
+    }
+
+    /** The latest running verification result, or null. Called from {@link #feed}/{@link #finish}. */
+    @Nullable
+    final VerificationResult latestPartial() {
+        return partial;
+    }
+
+    /** Discard the library's stream after cancellation or failure. */
+    void abort() {
+    }
+
+    /** Subscribe to shared capture (starting it if needed). Requires RECORD_AUDIO. */
+    void start() {
+        SharedAudioFrontEnd.Tap t = SharedAudioFrontEnd.subscribe("sid-" + instanceId, this::onHop);
+        synchronized (this) {
+            if (isDone()) {
+                t.close();
+            } else {
+                tap = t;
+            }
+        }
+    }
+
+    private synchronized void onHop(@NonNull short[] pcm, int length, long hopIndex, long captureTimeNanos, float energyDbfs) {
+        if (isDone()) return;
+        if (firstHopNanos < 0L) firstHopNanos = captureTimeNanos;
+        short[] block = pcm;
+        if (length != pcm.length) {
+            block = hop.ensure(length);
+            System.arraycopy(pcm, 0, block, 0, length);
+        }
+        if (energyDbfs > VOICED_DBFS) voicedSamples += length;
+        long elapsed = captureTimeNanos - firstHopNanos;
+        try {
+            T r = feed(block);
+            if (r == null && (voicedSeconds() >= targetVoicedSec || elapsed >= maxNanos)) {
+                r = finish();
+            }
+            if (listener != null && (r != null || freshPartial || elapsed - lastProgressNanos >= PROGRESS_INTERVAL_NANOS)) {
+                lastProgressNanos = elapsed;
+                freshPartial = false;
+                try {
+                    listener.onProgress(instanceId, voicedSeconds(), elapsed / 1_000_000L, partial);
+                } catch (Throwable t) {
+                    Log.w(TAG, "Capture progress listener failed for " + instanceId + ": " + t.getMessage());
+                }
+            }
+            if (r != null || voicedSeconds() >= targetVoicedSec || elapsed >= maxNanos) {
+                set(r);
+            }
+        } catch (Throwable t) {
+            setException(t);
+        }
+    }
+
+    private float voicedSeconds() {
+        return voicedSamples / (float) SharedAudioFrontEnd.SAMPLE_RATE;
+    }
+
+    @Override
+    protected void done() {
+        synchronized (this) {
+            if (tap != null) {
+                tap.close();
+                tap = null;
+            }
+            if (isCancelled()) {
+                abort();
+            } else {
+                try {
+                    get();
+                } catch (Throwable t) {
+                    abort();
+                }
+            }
+        }
+        registry.remove(instanceId, this);
+    }
+}
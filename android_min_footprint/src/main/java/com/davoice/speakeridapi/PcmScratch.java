@@ -0,0 +1,49 @@
+package com.davoice.speakeridapi;
+
+import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
+
+/**
+ * PcmScratch
+ *
+ * Reusable short[] used to hand buffer-backed PCM to SpeakerIdApi, which only accepts arrays.
+ * The array is reallocated only when the block length changes, so steady-state streaming with
+ * a fixed block size allocates nothing per block.
+ *
+ * Thread-safety: none. Callers use one scratch per stream and guard it as they guard the stream.
+ */
+final class PcmScratch {
+
+    private short[] block = new short[0];
+
+    /** Copy {@code length} samples from absolute index {@code offset}; position/limit are untouched. */
+    short[] fill(ShortBuffer src, int offset, int length) {
+        short[] dst = ensure(length);
+        if (src.hasArray()) {
+            System.arraycopy(src.array(), src.arrayOffset() + offset, dst, 0, length);
+        } else {
+            // Bulk get on a view: one native copy for direct buffers instead of a get() per sample.
+            ShortBuffer view = src.duplicate();
+            view.position(offset);
+            view.get(dst, 0, length);
+        }
+        return dst;
+    }
+
+    /** Copy {@code length} PCM16 samples from absolute byte index {@code byteOffset}, in the buffer's byte order. */
+    short[] fill(ByteBuffer src, int byteOffset, int length) {
+        short[] dst = ensure(length);
+        ByteBuffer view = src.duplicate().order(src.order()); // duplicate() resets the order
+        view.position(byteOffset);
+        view.asShortBuffer().get(dst, 0, length);
+        return dst;
+    }
+
+    /** The scratch array, reallocated only if {@code length} differs from the last call. */
+    short[] ensure(int length) {
+        if (block.length != length) {
+            block = new short[length];
+        }
+        return block;
+    }
+}
@@ -9,11 +9,16 @@ import androidx.annotation.Nullable;
 import androidx.annotation.RequiresPermission;
 
 import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Future;
+import com.davoice.keywordspotting.SharedAudioFrontEnd;
 import com.davoice.speakerid.*;
 
 
@@ -30,12 +35,28 @@ import com.davoice.speakerid.*;
     
     // external-audio cluster flow:
     int clusterId = sidMgr.initCluster("sidA", 3);
+    sidMgr.setClusterWriteBehind("sidA", true, 2000, 8); // optional: pushes run on a background thread
     sidMgr.createAndPushEmbeddingsToCluster("sidA", clusterId, pcmBlock, pcmBlock.length);
     float score = sidMgr.createAndVerifyEmbeddingsFromCluster("sidA", clusterId, verifyPcm, verifyPcm.length);
  
     // mic flows (permissions required):
     OnboardingResult ob = sidMgr.onboardFromMicrophoneWWD("sidA", 3, 12000);
     VerificationResult vr = sidMgr.verifyFromMicrophoneWWD("sidA", 6000);
+
+    // or without blocking the caller or the instance (cancellable, with progress):
+    Future<VerificationResult> fv = sidMgr.verifyFromMicrophoneAsync("sidA", 3f, 6000,
+            (id, voicedSec, elapsedMs, partial) -> Log.i("App", id + " voiced " + voicedSec + " s"));
+
+    // 1:N identification on shared devices (top 3 of the household's clusters):
+    List<SpeakerMatch> who = sidMgr.identify("sidA", pcm, pcm.length, 3, momId, dadId, kidId);
+
+    // wake-then-verify on the audio KeywordDetectionAPI already captured
+    // (after kwdApi.setSharedCaptureEnabled(true)):
+    float s = sidMgr.createAndVerifyEmbeddingsFromSharedCapture("sidA", clusterId, 1000);
+
+    // or let a pipeline verify every detection on its own triggering window:
+    WakeVerifyPipeline p = new WakeVerifyPipeline(kwdApi, "wake", sidMgr, "sidA", clusterId, 0.6f);
+    p.start(ev -> Log.i("App", ev.toString()), mainExecutor);
 *
 *
 **/
@@ -55,6 +76,30 @@ public class SpeakerIdNativeAPI {
     private final Context appContext;
     private final Map<String, SpeakerIdApi> instances = new ConcurrentHashMap<>();
     private final Map<String, SpeakerIdApi.OnboardingStream> onboardingStreams = new ConcurrentHashMap<>();
+    // Reusable blocks for the ShortBuffer/ByteBuffer overloads (verify is guarded by the instance lock,
+    // onboarding by the single stream feeder).
+    private final ConcurrentMap<String, PcmScratch> verifyScratch = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, PcmScratch> onboardingScratch = new ConcurrentHashMap<>();
+    private final Map<String, SharedAudioFrontEnd.Tap> sharedTaps = new ConcurrentHashMap<>();
+    private final Map<String, ClusterWriteBehind> writeBehind = new ConcurrentHashMap<>();
+    private final Map<String, MicCaptureSession<?>> micSessions = new ConcurrentHashMap<>();
+    // Instances whose verification stream the caller pushed to and has not finished; guarded by the api monitor.
+    private final Map<String, Boolean> openVerifyStreams = new ConcurrentHashMap<>();
+
+    /** Receives results of {@link #startVerifyStreamFromSharedCapture}, on the capture tap's thread. */
+    public interface OnVerificationListener {
+        void onVerification(@NonNull String instanceId, @NonNull VerificationResult result);
+    }
+
+    /** Progress of {@link #onboardFromMicrophoneAsync}/{@link #verifyFromMicrophoneAsync}, on the capture tap's thread. */
+    public interface OnCaptureProgressListener {
+        /**
+         * @param voicedSeconds voiced audio fed to the library so far
+         * @param elapsedMs     capture time since the first hop
+         * @param partial       latest running verification result; null for onboarding and before the first
+         */
+        void onProgress(@NonNull String instanceId, float voicedSeconds, long elapsedMs, @Nullable VerificationResult partial);
+    }
 
     public SpeakerIdNativeAPI(@NonNull Context context) {
         this.appContext = context.getApplicationContext();
@@ -101,10 +146,18 @@ public class SpeakerIdNativeAPI {
         if (api == null) {
             throw new IllegalStateException("No instance found: " + instanceId);
         }
+        SharedAudioFrontEnd.Tap tap = sharedTaps.remove(instanceId);
+        if (tap != null) tap.close();
+        MicCaptureSession<?> mic = micSessions.get(instanceId);
+        if (mic != null) mic.cancel(false);
         synchronized (api) {
+            closeWriteBehindLocked(instanceId);
             try { api.close(); } catch (Throwable ignore) {}
         }
         onboardingStreams.remove(instanceId);
+        onboardingScratch.remove(instanceId);
+        verifyScratch.remove(instanceId);
+        openVerifyStreams.remove(instanceId);
         Log.d(TAG, "Destroyed instance: " + instanceId);
     }
 
@@ -125,6 +178,7 @@ public class SpeakerIdNativeAPI {
     public boolean initVerificationUsingDefaults(@NonNull String instanceId) {
         SpeakerIdApi api = require(instanceId);
         synchronized (api) {
+            flushPendingLocked(instanceId);
             return api.initVerificationUsingDefaults(appContext);
         }
     }
@@ -135,6 +189,7 @@ public class SpeakerIdNativeAPI {
                                              @NonNull File clusterNpy) {
         SpeakerIdApi api = require(instanceId);
         synchronized (api) {
+            flushPendingLocked(instanceId);
             return api.initVerificationWithFiles(meanNpy, clusterNpy);
         }
     }
@@ -143,6 +198,7 @@ public class SpeakerIdNativeAPI {
     public void wipeAllTargetsAndReset(@NonNull String instanceId) {
         SpeakerIdApi api = require(instanceId);
         synchronized (api) {
+            flushPendingLocked(instanceId);
             api.wipeAllTargetsAndReset();
         }
     }
@@ -169,6 +225,52 @@ public class SpeakerIdNativeAPI {
         }
     }
 
+    /**
+     * Non-blocking {@link #onboardFromMicrophoneUntil}: shared-capture hops are fed to an
+     * onboarding stream on the capture tap's thread until the stream completes, until
+     * {@code targetVoicedSec} of voiced audio has been fed, or for {@code maxMillis}. The
+     * instance lock is held only to start the stream, so other calls on the instance proceed
+     * during capture. Starts shared capture if needed.
+     *
+     * The future yields the stream's result (null if it produced none); cancelling it stops
+     * capture and discards the stream. Destroying the instance cancels it.
+     *
+     * @throws IllegalStateException if instance does not exist, already captures from the microphone,
+     *                               has an unfinished {@link #verifyStreamPush} stream, or shared
+     *                               capture cannot be started
+     */
+    @RequiresPermission(android.Manifest.permission.RECORD_AUDIO)
+    @NonNull
+    public Future<OnboardingResult> onboardFromMicrophoneAsync(@NonNull String instanceId,
+                                                              float targetVoicedSec,
+                                                              long maxMillis,
+                                                              @Nullable OnCaptureProgressListener listener) {
+        SpeakerIdApi api = require(instanceId);
+        MicCaptureSession<OnboardingResult> session;
+        synchronized (api) {
+            checkMicIdle(instanceId);
+            final SpeakerIdApi.OnboardingStream stream = api.startOnboardingStream();
+            session = new MicCaptureSession<OnboardingResult>(instanceId, targetVoicedSec, maxMillis, listener, micSessions) {
+                @Override
+                OnboardingResult feed(@NonNull short[] block) throws Exception {
+                    return stream.feed(block);
+                }
+
+                @Override
+                OnboardingResult finish() throws Exception {
+                    return stream.finish();
+                }
+
+                @Override
+                void abort() {
+                    try { stream.finish(); } catch (Throwable ignore) {}
+                }
+            };
+            micSessions.put(instanceId, session);
+        }
+        return startMicSession(session);
+    }
+
     // ---------------------------
     // Onboarding (STREAM)
     // ---------------------------
@@ -190,6 +292,34 @@ public class SpeakerIdNativeAPI {
         return s.feed(pcm);
     }
 
+    /**
+     * Feed {@code length} samples from {@code pcm} at absolute index {@code offset}.
+     * The block is copied into a reused array (no per-block allocation at a fixed block size).
+     */
+    @Nullable
+    public OnboardingResult feedOnboardingStream(@NonNull String instanceId,
+                                                 @NonNull ShortBuffer pcm,
+                                                 int offset,
+                                                 int length) throws Exception {
+        SpeakerIdApi.OnboardingStream s = onboardingStreams.get(instanceId);
+        if (s == null) throw new IllegalStateException("Stream not started for: " + instanceId);
+        return s.feed(scratch(onboardingScratch, instanceId).fill(pcm, offset, length));
+    }
+
+    /**
+     * Feed {@code length} PCM16 samples from {@code pcm} at absolute byte index {@code byteOffset},
+     * decoded in the buffer's byte order.
+     */
+    @Nullable
+    public OnboardingResult feedOnboardingStream(@NonNull String instanceId,
+                                                 @NonNull ByteBuffer pcm,
+                                                 int byteOffset,
+                                                 int length) throws Exception {
+        SpeakerIdApi.OnboardingStream s = onboardingStreams.get(instanceId);
+        if (s == null) throw new IllegalStateException("Stream not started for: " + instanceId);
+        return s.feed(scratch(onboardingScratch, instanceId).fill(pcm, byteOffset, length));
+    }
+
     /** Finish the onboarding stream (flush). */
     @Nullable
     public OnboardingResult finishOnboardingStream(@NonNull String instanceId) throws Exception {
@@ -221,23 +351,126 @@ public class SpeakerIdNativeAPI {
         }
     }
 
+    /**
+     * Non-blocking microphone verification: shared-capture hops are pushed to the instance's
+     * verification stream on the capture tap's thread until {@code targetVoicedSec} of voiced
+     * audio has been fed or for {@code maxMillis}, then the stream is finished. The instance lock
+     * is taken per block only, so other calls on the instance (wipe, exports, cluster calls)
+     * proceed during capture. Running results are reported to {@code listener} as they arrive.
+     * Starts shared capture if needed.
+     *
+     * The future yields the finished stream's result, or the last running one if finishing
+     * produced none; cancelling it stops capture and discards the stream. Destroying the instance
+     * cancels it.
+     *
+     * @throws IllegalStateException if instance does not exist, already captures from the microphone,
+     *                               has an unfinished {@link #verifyStreamPush} stream, or shared
+     *                               capture cannot be started
+     */
+    @RequiresPermission(android.Manifest.permission.RECORD_AUDIO)
+    @NonNull
+    public Future<VerificationResult> verifyFromMicrophoneAsync(@NonNull String instanceId,
+                                                               float targetVoicedSec,
+                                                               long maxMillis,
+                                                               @Nullable OnCaptureProgressListener listener) {
+        final SpeakerIdApi api = require(instanceId);
+        MicCaptureSession<VerificationResult> session;
+        synchronized (api) {
+            checkMicIdle(instanceId);
+            session = new MicCaptureSession<VerificationResult>(instanceId, targetVoicedSec, maxMillis, listener, micSessions) {
+                @Override
+                VerificationResult feed(@NonNull short[] block) throws Exception {
+                    VerificationResult r;
+                    synchronized (api) {
+                        r = api.verifyStreamPush(block);
+                    }
+                    if (r != null) reportPartial(r);
+                    return null;
+                }
+
+                @Override
+                VerificationResult finish() throws Exception {
+                    VerificationResult r;
+                    synchronized (api) {
+                        r = api.verifyStreamFinish();
+                    }
+                    return r != null ? r : latestPartial();
+                }
+
+                @Override
+                void abort() {
+                    synchronized (api) {
+                        try { api.verifyStreamFinish(); } catch (Throwable ignore) {}
+                    }
+                }
+            };
+            micSessions.put(instanceId, session);
+        }
+        return startMicSession(session);
+    }
+
     // ---------------------------
     // Verification (STREAM)
     // ---------------------------
 
+    /**
+     * Push one block to the instance's verification stream. The instance has one stream, which
+     * microphone capture ({@link #verifyFromMicrophoneAsync}, {@link #startVerifyStreamFromSharedCapture})
+     * also feeds, so the two exclude each other: this fails while capture runs on the instance,
+     * and capture cannot start until {@link #verifyStreamFinish} ends a stream pushed here.
+     *
+     * @throws IllegalStateException if instance does not exist or captures from the microphone
+     */
     @Nullable
     public VerificationResult verifyStreamPush(@NonNull String instanceId, @NonNull short[] block) throws Exception {
         SpeakerIdApi api = require(instanceId);
         synchronized (api) {
+            openVerifyStreamLocked(instanceId);
             return api.verifyStreamPush(block);
         }
     }
 
+    /** Push {@code length} samples from {@code pcm} at absolute index {@code offset} (no per-block allocation). */
+    @Nullable
+    public VerificationResult verifyStreamPush(@NonNull String instanceId,
+                                               @NonNull ShortBuffer pcm,
+                                               int offset,
+                                               int length) throws Exception {
+        SpeakerIdApi api = require(instanceId);
+        synchronized (api) {
+            openVerifyStreamLocked(instanceId);
+            return api.verifyStreamPush(scratch(verifyScratch, instanceId).fill(pcm, offset, length));
+        }
+    }
+
+    /** Push {@code length} PCM16 samples from {@code pcm} at absolute byte index {@code byteOffset}. */
+    @Nullable
+    public VerificationResult verifyStreamPush(@NonNull String instanceId,
+                                               @NonNull ByteBuffer pcm,
+                                               int byteOffset,
+                                               int length) throws Exception {
+        SpeakerIdApi api = require(instanceId);
+        synchronized (api) {
+            openVerifyStreamLocked(instanceId);
+            return api.verifyStreamPush(scratch(verifyScratch, instanceId).fill(pcm, byteOffset, length));
+        }
+    }
+
+    /**
+     * Finish the stream fed by {@link #verifyStreamPush}.
+     *
+     * @throws IllegalStateException if instance does not exist or captures from the microphone
+     */
     @Nullable
     public VerificationResult verifyStreamFinish(@NonNull String instanceId) throws Exception {
         SpeakerIdApi api = require(instanceId);
         synchronized (api) {
-            return api.verifyStreamFinish();
+            checkNoCapture(instanceId);
+            try {
+                return api.verifyStreamFinish();
+            } finally {
+                openVerifyStreams.remove(instanceId);
+            }
         }
     }
 
@@ -280,6 +513,7 @@ public class SpeakerIdNativeAPI {
     public Uri exportDefaultClusterToDownloads(@NonNull String instanceId) throws Exception {
         SpeakerIdApi api = require(instanceId);
         synchronized (api) {
+            flushPendingLocked(instanceId);
             return api.exportDefaultClusterToDownloads(appContext);
         }
     }
@@ -288,6 +522,7 @@ public class SpeakerIdNativeAPI {
     public Uri exportDefaultMeanToDownloads(@NonNull String instanceId) throws Exception {
         SpeakerIdApi api = require(instanceId);
         synchronized (api) {
+            flushPendingLocked(instanceId);
             return api.exportDefaultMeanToDownloads(appContext);
         }
     }
@@ -296,6 +531,7 @@ public class SpeakerIdNativeAPI {
     public Uri exportDefaultMeanCountToDownloads(@NonNull String instanceId) throws Exception {
         SpeakerIdApi api = require(instanceId);
         synchronized (api) {
+            flushPendingLocked(instanceId);
             return api.exportDefaultMeanCountToDownloads(appContext);
         }
     }
@@ -309,13 +545,19 @@ public class SpeakerIdNativeAPI {
     public int initCluster(@NonNull String instanceId, int numOfEmb) {
         SpeakerIdApi api = require(instanceId);
         synchronized (api) {
+            flushPendingLocked(instanceId);
             return api.initCluster(numOfEmb);
         }
     }
 
     /**
      * Create exactly ONE embedding from the given pcm buffer (prefers last 1.0 s, pads by duplication),
-     * push it into the cluster (FIFO), and persist cluster+mean.
+     * push it into the cluster (FIFO), and persist cluster+mean. With write-behind enabled
+     * ({@link #setClusterWriteBehind}) the samples are queued and this returns at once, unless
+     * the queue is full.
+     *
+     * The library does not return the embedding, so a verify and a push of the same audio each
+     * compute their own.
      */
     public void createAndPushEmbeddingsToCluster(@NonNull String instanceId,
                                                  int clusterId,
@@ -323,13 +565,61 @@ public class SpeakerIdNativeAPI {
                                                  int length) {
         SpeakerIdApi api = require(instanceId);
         synchronized (api) {
-            api.createAndPushEmbeddingsToCluster(clusterId, pcm, length);
+            pushLocked(instanceId, api, clusterId, pcm, length);
         }
     }
 
+    /**
+     * Queue cluster pushes instead of running them on the caller's thread. The library
+     * persists cluster and mean on every push; with write-behind, continuous enrollment no
+     * longer waits for embedding and storage: queued pushes are applied in order on a background
+     * thread {@code maxDelayMs} after the first one is queued, as soon as {@code maxPending} are
+     * queued, on {@link #flushClusterWrites}, and on {@link #destroyInstance}. Every call that
+     * reads or replaces the instance's targets (verify against a cluster, initCluster, init/wipe,
+     * exports) applies the queue first, so it sees all earlier pushes. Disabling flushes.
+     *
+     * Every push is applied, in order. Each queued push still runs the library's synchronous
+     * embed-and-write call, one per push: writes are not batched and the files are not replaced
+     * atomically (the library writes them); write-behind only moves that work off the enrolling
+     * thread. When {@code 4 * maxPending} pushes are queued, the next push applies the queue and
+     * itself on the calling thread instead, so a slow flusher slows enrollment rather than losing
+     * audio. Pushes still queued when the process dies are lost (at most {@code maxDelayMs} of
+     * enrollment).
+     *
+     * @throws IllegalStateException if instance does not exist
+     */
+    public void setClusterWriteBehind(@NonNull String instanceId, boolean enabled, long maxDelayMs, int maxPending) {
+        SpeakerIdApi api = require(instanceId);
+        synchronized (api) {
+            checkLive(instanceId, api);
+            closeWriteBehindLocked(instanceId);
+            if (enabled) {
+                writeBehind.put(instanceId, new ClusterWriteBehind(instanceId, api, maxDelayMs, maxPending));
+            }
+        }
+    }
+
+    /** Apply all queued cluster pushes now; blocks until they are persisted. No-op without write-behind. */
+    public void flushClusterWrites(@NonNull String instanceId) {
+        SpeakerIdApi api = require(instanceId);
+        synchronized (api) {
+            flushPendingLocked(instanceId);
+        }
+    }
+
+    /** Cluster pushes queued by write-behind and not yet applied. */
+    public int getPendingClusterWrites(@NonNull String instanceId) {
+        require(instanceId);
+        ClusterWriteBehind wb = writeBehind.get(instanceId);
+        return wb == null ? 0 : wb.pendingCount();
+    }
+
     /**
      * Create exactly ONE embedding from the given pcm buffer (same window/pad policy as push),
      * and return the best cosine score vs {mean ∪ cluster rows}.
+     *
+     * The targets live inside the library, which neither exposes them nor returns embeddings;
+     * this wrapper keeps no copy of them, and every score is computed by the library.
      */
     public float createAndVerifyEmbeddingsFromCluster(@NonNull String instanceId,
                                                       int clusterId,
@@ -337,10 +627,126 @@ public class SpeakerIdNativeAPI {
                                                       int length) {
         SpeakerIdApi api = require(instanceId);
         synchronized (api) {
+            flushPendingLocked(instanceId);
             return api.createAndVerifyEmbeddingsFromCluster(clusterId, pcm, length);
         }
     }
 
+    /**
+     * 1:N identification: score {@code pcm} against every cluster in {@code clusterIds} and
+     * return the {@code topK} best, best first.
+     *
+     * A convenience loop over {@link #createAndVerifyEmbeddingsFromCluster}, no faster than
+     * calling it once per cluster: the library computes one embedding per cluster (it does not
+     * expose embeddings, so one cannot be shared), and cost grows linearly with the number of
+     * clusters. The instance lock is taken per cluster, so other calls on the instance run
+     * between clusters instead of waiting for the whole loop; a push made meanwhile is seen by
+     * the clusters scored after it.
+     *
+     * @throws IllegalStateException    if instance does not exist, or is destroyed during the loop
+     * @throws IllegalArgumentException if {@code clusterIds} is empty
+     */
+    @NonNull
+    public List<SpeakerMatch> identify(@NonNull String instanceId,
+                                       @NonNull short[] pcm,
+                                       int length,
+                                       int topK,
+                                       @NonNull int... clusterIds) {
+        if (clusterIds.length == 0) throw new IllegalArgumentException("No clusters to identify against");
+        SpeakerIdApi api = require(instanceId);
+        float[] scores = new float[clusterIds.length];
+        for (int i = 0; i < clusterIds.length; i++) {
+            synchronized (api) {
+                checkLive(instanceId, api);
+                flushPendingLocked(instanceId);
+                scores[i] = api.createAndVerifyEmbeddingsFromCluster(clusterIds[i], pcm, length);
+            }
+        }
+        return selectTopK(clusterIds, scores, topK);
+    }
+
+    // ---------------------------
+    // SHARED FRONT END
+    // (audio already captured by KeywordDetectionAPI's shared capture; no second recorder)
+    // ---------------------------
+
+    /**
+     * Same as {@link #createAndVerifyEmbeddingsFromCluster} on the last {@code windowMs} of shared
+     * capture. Called right after a detection, that window holds the wake word itself.
+     *
+     * @throws IllegalStateException if shared capture is not running
+     */
+    public float createAndVerifyEmbeddingsFromSharedCapture(@NonNull String instanceId,
+                                                            int clusterId,
+                                                            int windowMs) {
+        SpeakerIdApi api = require(instanceId);
+        synchronized (api) {
+            flushPendingLocked(instanceId);
+            short[] pcm = scratch(verifyScratch, instanceId).ensure(windowSamples(windowMs));
+            int n = copySharedHistory(pcm);
+            return api.createAndVerifyEmbeddingsFromCluster(clusterId, pcm, n);
+        }
+    }
+
+    /**
+     * Same as {@link #createAndPushEmbeddingsToCluster} on the last {@code windowMs} of shared capture.
+     *
+     * @throws IllegalStateException if shared capture is not running
+     */
+    public void createAndPushEmbeddingsToClusterFromSharedCapture(@NonNull String instanceId,
+                                                                  int clusterId,
+                                                                  int windowMs) {
+        SpeakerIdApi api = require(instanceId);
+        synchronized (api) {
+            short[] pcm = scratch(verifyScratch, instanceId).ensure(windowSamples(windowMs));
+            int n = copySharedHistory(pcm);
+            pushLocked(instanceId, api, clusterId, pcm, n);
+        }
+    }
+
+    /**
+     * Feed every shared-capture hop into the instance's verification stream until
+     * {@link #stopVerifyStreamFromSharedCapture} is called. Non-null results go to {@code listener}.
+     * Starts shared capture if needed (RECORD_AUDIO required).
+     *
+     * @throws IllegalStateException if instance does not exist, already captures from the microphone,
+     *                               or has an unfinished {@link #verifyStreamPush} stream
+     */
+    @RequiresPermission(android.Manifest.permission.RECORD_AUDIO)
+    public void startVerifyStreamFromSharedCapture(@NonNull final String instanceId,
+                                                   @NonNull final OnVerificationListener listener) {
+        final SpeakerIdApi api = require(instanceId);
+        synchronized (api) {
+            checkMicIdle(instanceId);
+            final PcmScratch hop = new PcmScratch();
+            SharedAudioFrontEnd.Tap tap = SharedAudioFrontEnd.subscribe("sid-" + instanceId,
+                    (pcm, length, hopIndex, captureTimeNanos, energyDbfs) -> {
+                        VerificationResult r;
+                        try {
+                            short[] block = pcm;
+                            if (length != pcm.length) {
+                                block = hop.ensure(length);
+                                System.arraycopy(pcm, 0, block, 0, length);
+                            }
+                            synchronized (api) {
+                                r = api.verifyStreamPush(block);
+                            }
+                        } catch (Throwable t) {
+                            Log.w(TAG, "verifyStreamPush failed for " + instanceId + ": " + t.getMessage());
+                            return;
+                        }
+                        if (r != null) listener.onVerification(instanceId, r);
+                    });
+            sharedTaps.put(instanceId, tap);
+        }
+    }
+
+    /** Stop feeding shared-capture hops to this instance. No-op if not running. */
+    public void stopVerifyStreamFromSharedCapture(@NonNull String instanceId) {
+        SharedAudioFrontEnd.Tap tap = sharedTaps.remove(instanceId);
+        if (tap != null) tap.close();
+    }
+
     // ---------------------------
     // Internal helper
     // ---------------------------
@@ -350,4 +756,108 @@ public class SpeakerIdNativeAPI {
         if (api == null) throw new IllegalStateException("Instance not found: " + instanceId);
         return api;
     }
+
+    // Caller holds the instance's api monitor.
+    private void checkMicIdle(@NonNull String instanceId) {
+        checkNoCapture(instanceId);
+        if (openVerifyStreams.containsKey(instanceId)) {
+            throw new IllegalStateException("Verification stream not finished for: " + instanceId);
+        }
+    }
+
+    // Caller holds the instance's api monitor.
+    private void checkNoCapture(@NonNull String instanceId) {
+        if (sharedTaps.containsKey(instanceId) || micSessions.containsKey(instanceId)) {
+            throw new IllegalStateException("Microphone capture already running for: " + instanceId);
+        }
+    }
+
+    // Caller holds the instance's api monitor; the caller-driven stream and microphone capture exclude each other.
+    private void openVerifyStreamLocked(@NonNull String instanceId) {
+        checkNoCapture(instanceId);
+        openVerifyStreams.put(instanceId, Boolean.TRUE);
+    }
+
+    @NonNull
+    private <T> Future<T> startMicSession(@NonNull MicCaptureSession<T> session) {
+        try {
+            session.start();
+        } catch (RuntimeException e) {
+            session.cancel(false);
+            throw e;
+        }
+        return session;
+    }
+
+    // Caller holds the instance's api monitor.
+    private void flushPendingLocked(@NonNull String instanceId) {
+        ClusterWriteBehind wb = writeBehind.get(instanceId);
+        if (wb != null) wb.flushLocked();
+    }
+
+    // Caller holds the instance's api monitor. Applies the queue; later pushes go to the library directly.
+    private void closeWriteBehindLocked(@NonNull String instanceId) {
+        ClusterWriteBehind wb = writeBehind.remove(instanceId);
+        if (wb != null) wb.close();
+    }
+
+    // Caller holds the instance's api monitor.
+    private void pushLocked(@NonNull String instanceId, @NonNull SpeakerIdApi api, int clusterId,
+                            @NonNull short[] pcm, int length) {
+        checkLive(instanceId, api);
+        ClusterWriteBehind wb = writeBehind.get(instanceId);
+        if (wb != null) {
+            if (wb.push(clusterId, pcm, length)) return;
+            wb.flushLocked(); // queue full: apply it here so this push stays in order
+        }
+        api.createAndPushEmbeddingsToCluster(clusterId, pcm, length);
+    }
+
+    // Caller holds the instance's api monitor; fails if the instance was destroyed (and its api closed) meanwhile.
+    private void checkLive(@NonNull String instanceId, @NonNull SpeakerIdApi api) {
+        if (instances.get(instanceId) != api) throw new IllegalStateException("Instance not found: " + instanceId);
+    }
+
+    // The topK entries of scores (NaN last), best first.
+    @NonNull
+    private static List<SpeakerMatch> selectTopK(@NonNull int[] clusterIds, @NonNull float[] scores, int topK) {
+        int k = Math.min(Math.max(0, topK), clusterIds.length);
+        List<SpeakerMatch> out = new ArrayList<>(k);
+        boolean[] taken = new boolean[clusterIds.length];
+        // k is small (a handful of household members); repeated selection beats sorting all N.
+        for (int n = 0; n < k; n++) {
+            int pick = -1;
+            for (int i = 0; i < scores.length; i++) {
+                if (taken[i]) continue;
+                if (pick < 0 || scores[i] > scores[pick] || (Float.isNaN(scores[pick]) && !Float.isNaN(scores[i]))) {
+                    pick = i;
+                }
+            }
+            taken[pick] = true;
+            out.add(new SpeakerMatch(clusterIds[pick], scores[pick]));
+        }
+        return out;
+    }
+
+    private static int windowSamples(int windowMs) {
+        int samples = (int) ((long) Math.max(0, windowMs) * SharedAudioFrontEnd.SAMPLE_RATE / 1000L);
+        return Math.min(samples, SharedAudioFrontEnd.getMaxHistorySamples());
+    }
+
+    private static int copySharedHistory(short[] out) {
+        if (!SharedAudioFrontEnd.isRunning()) {
+            throw new IllegalStateException("Shared capture is not running; start keyword detection with shared capture first");
+        }
+        return SharedAudioFrontEnd.copyRecent(out, out.length);
+    }
+
+    private static PcmScratch scratch(ConcurrentMap<String, PcmScratch> pool, String instanceId) {
+        PcmScratch s = pool.get(instanceId);
+        if (s == null) {
+            PcmScratch created = new PcmScratch();
+            s = pool.putIfAbsent(instanceId, created);
+            if (s == null) s = created;
+        }
+        return s;
+    }
 }
@@ -0,0 +1,30 @@
+package com.davoice.speakeridapi;
+
+import androidx.annotation.NonNull;
+
+/** One cluster's score in an identification result ({@link SpeakerIdNativeAPI#identify}). Immutable. */
+public final class SpeakerMatch {
+
+    private final int clusterId;
+    private final float score;
+
+    SpeakerMatch(int clusterId, float score) {
+        this.clusterId = clusterId;
+        this.score = score;
+    }
+
+    public int getClusterId() {
+        return clusterId;
+    }
+
+    /** Best cosine score against the cluster's mean and rows (NaN if it has none). */
+    public float getScore() {
+        return score;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "SpeakerMatch{cluster=" + clusterId + ", score=" + score + "}";
+    }
+}
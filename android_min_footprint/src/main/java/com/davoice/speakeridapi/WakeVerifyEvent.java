@@ -0,0 +1,139 @@
+package com.davoice.speakeridapi;
+
+import androidx.annotation.NonNull;
+
+/**
+ * WakeVerifyEvent
+ *
+ * One wake word detection together with the speaker verification of the audio that triggered
+ * it, as emitted by {@link WakeVerifyPipeline}. Immutable.
+ *
+ * Timestamps ending in {@code Nanos} use the {@link System#nanoTime()} clock.
+ */
+public final class WakeVerifyEvent {
+
+    private final String keywordInstanceId;
+    private final String phrase;
+    private final int modelIndex;
+    private final String speakerInstanceId;
+    private final int clusterId;
+    private final float speakerScore;
+    private final boolean accepted;
+    private final int windowSamples;
+    private final long captureTimeNanos;
+    private final long detectionTimeNanos;
+    private final long verifyStartNanos;
+    private final long verifyEndNanos;
+    private final long detectionWallTimeMillis;
+
+    WakeVerifyEvent(@NonNull String keywordInstanceId,
+                    @NonNull String phrase,
+                    int modelIndex,
+                    @NonNull String speakerInstanceId,
+                    int clusterId,
+                    float speakerScore,
+                    boolean accepted,
+                    int windowSamples,
+                    long captureTimeNanos,
+                    long detectionTimeNanos,
+                    long verifyStartNanos,
+                    long verifyEndNanos,
+                    long detectionWallTimeMillis) {
+        this.keywordInstanceId = keywordInstanceId;
+        this.phrase = phrase;
+        this.modelIndex = modelIndex;
+        this.speakerInstanceId = speakerInstanceId;
+        this.clusterId = clusterId;
+        this.speakerScore = speakerScore;
+        this.accepted = accepted;
+        this.windowSamples = windowSamples;
+        this.captureTimeNanos = captureTimeNanos;
+        this.detectionTimeNanos = detectionTimeNanos;
+        this.verifyStartNanos = verifyStartNanos;
+        this.verifyEndNanos = verifyEndNanos;
+        this.detectionWallTimeMillis = detectionWallTimeMillis;
+    }
+
+    @NonNull
+    public String getKeywordInstanceId() {
+        return keywordInstanceId;
+    }
+
+    /** The model that fired. */
+    @NonNull
+    public String getPhrase() {
+        return phrase;
+    }
+
+    /** Index of the model in the keyword instance's model list, or -1 if unknown. */
+    public int getModelIndex() {
+        return modelIndex;
+    }
+
+    @NonNull
+    public String getSpeakerInstanceId() {
+        return speakerInstanceId;
+    }
+
+    public int getClusterId() {
+        return clusterId;
+    }
+
+    /** Best cosine score against the cluster, or NaN if the triggering audio was not available. */
+    public float getSpeakerScore() {
+        return speakerScore;
+    }
+
+    /** True if the score reached the pipeline's accept score. */
+    public boolean isAccepted() {
+        return accepted;
+    }
+
+    /** Samples of triggering audio that were verified (0 if none were available). */
+    public int getWindowSamples() {
+        return windowSamples;
+    }
+
+    public long getCaptureTimeNanos() {
+        return captureTimeNanos;
+    }
+
+    public long getDetectionTimeNanos() {
+        return detectionTimeNanos;
+    }
+
+    public long getDetectionWallTimeMillis() {
+        return detectionWallTimeMillis;
+    }
+
+    /** Capture of the triggering frame to the keyword detection. */
+    public long getDetectionLatencyNanos() {
+        return detectionTimeNanos - captureTimeNanos;
+    }
+
+    /** Keyword detection to the start of verification (callback and worker queueing). */
+    public long getQueueNanos() {
+        return verifyStartNanos - detectionTimeNanos;
+    }
+
+    /** Window copy plus embedding and scoring. */
+    public long getVerificationNanos() {
+        return verifyEndNanos - verifyStartNanos;
+    }
+
+    /** Capture of the triggering frame to the verified result. */
+    public long getTotalLatencyNanos() {
+        return verifyEndNanos - captureTimeNanos;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "WakeVerifyEvent{" + keywordInstanceId + ", " + phrase + ", speaker=" + speakerInstanceId
+                + ", score=" + speakerScore + (accepted ? " (accepted)" : " (rejected)")
+                + ", detectMs=" + getDetectionLatencyNanos() / 1_000_000L
+                + ", queueMs=" + getQueueNanos() / 1_000_000L
+                + ", verifyMs=" + getVerificationNanos() / 1_000_000L
+                + ", totalMs=" + getTotalLatencyNanos() / 1_000_000L + "}";
+    }
+}
@@ -0,0 +1,177 @@
+package com.davoice.speakeridapi;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.davoice.keywordspotting.DetectionEvent;
+import com.davoice.keywordspotting.KeywordDetectionAPI;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * WakeVerifyPipeline
+ *
+ * Links one KeywordDetectionAPI instance to a SpeakerIdNativeAPI instance and cluster. Every
+ * detection is verified on the audio window that triggered it, copied straight from the keyword
+ * instance's audio history (the shared capture ring, or the pushed-audio history the pipeline
+ * enables for external audio), and reported as one {@link WakeVerifyEvent} carrying the keyword,
+ * the speaker score and a latency breakdown. There is no WAV round trip and no second recording.
+ *
+ * Verification runs on the pipeline's worker thread, never on the inference thread. The window
+ * buffer is allocated once and reused.
+ *
+ * Usage:
+ *
+ *   WakeVerifyPipeline p = new WakeVerifyPipeline(kwdApi, "wake", sidMgr, "sidA", clusterId, 0.6f);
+ *   p.start(ev -> { if (ev.isAccepted()) onOwnerWake(ev.getPhrase()); }, mainExecutor);
+ *   ...
+ *   p.stop();
+ *
+ * Thread-safety: start/stop/setWindowMs may be called from any thread.
+ */
+public final class WakeVerifyPipeline {
+
+    private static final String TAG = "SpeakerIdNativeAPI";
+
+    /** Triggering audio verified by default (the embedding uses the last 1.0 s). */
+    public static final int DEFAULT_WINDOW_MS = 1000;
+    private static final int SAMPLE_RATE = 16000;
+    private static final int MAX_WINDOW_MS = 2000;
+
+    /** Receives combined results, on the executor passed to {@link #start}. */
+    public interface Listener {
+        void onWakeVerified(@NonNull WakeVerifyEvent event);
+    }
+
+    private final KeywordDetectionAPI keywords;
+    private final String keywordInstanceId;
+    private final SpeakerIdNativeAPI speakers;
+    private final String speakerInstanceId;
+    private final int clusterId;
+    private final float acceptScore;
+    private final short[] window = new short[MAX_WINDOW_MS * SAMPLE_RATE / 1000]; // worker only
+
+    private volatile int windowMs = DEFAULT_WINDOW_MS;
+
+    // Guarded by this.
+    private @Nullable ExecutorService worker;
+    private @Nullable KeywordDetectionAPI.OnDetectionEventListener detectionListener;
+
+    /**
+     * @param acceptScore speaker score at or above which {@link WakeVerifyEvent#isAccepted()} is true
+     */
+    public WakeVerifyPipeline(@NonNull KeywordDetectionAPI keywords,
+                              @NonNull String keywordInstanceId,
+                              @NonNull SpeakerIdNativeAPI speakers,
+                              @NonNull String speakerInstanceId,
+                              int clusterId,
+                              float acceptScore) {
+        this.keywords = keywords;
+        this.keywordInstanceId = keywordInstanceId;
+        this.speakers = speakers;
+        this.speakerInstanceId = speakerInstanceId;
+        this.clusterId = clusterId;
+        this.acceptScore = acceptScore;
+    }
+
+    /** Triggering audio to verify, in ms (clamped to 100..2000). Default {@link #DEFAULT_WINDOW_MS}. */
+    public void setWindowMs(int windowMs) {
+        this.windowMs = Math.max(100, Math.min(MAX_WINDOW_MS, windowMs));
+    }
+
+    public int getWindowMs() {
+        return windowMs;
+    }
+
+    /**
+     * Start verifying detections of the keyword instance. Enables its pushed-audio history so
+     * external audio works too; audio from the library's own microphone capture is not held, so
+     * such detections are reported with a NaN score.
+     *
+     * @throws IllegalStateException if already started, or if either instance does not exist
+     */
+    public synchronized void start(@NonNull final Listener listener, @NonNull final Executor listenerExecutor) {
+        if (worker != null) throw new IllegalStateException("Pipeline already started: " + this);
+        if (!speakers.hasInstance(speakerInstanceId)) {
+            throw new IllegalStateException("Instance not found: " + speakerInstanceId);
+        }
+        keywords.setDetectionAudioHistoryEnabled(keywordInstanceId, true);
+        ThreadPoolExecutor w = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<Runnable>(), r -> {
+                    Thread t = new Thread(r, "sid-verify-" + keywordInstanceId);
+                    t.setDaemon(true);
+                    return t;
+                });
+        KeywordDetectionAPI.OnDetectionEventListener l = event -> {
+            final WakeVerifyEvent result = verify(event);
+            try {
+                listenerExecutor.execute(() -> {
+                    try {
+                        listener.onWakeVerified(result);
+                    } catch (Throwable t) {
+                        Log.w(TAG, "Wake-verify listener threw for " + keywordInstanceId + ": " + t.getMessage());
+                    }
+                });
+            } catch (Throwable t) {
+                Log.w(TAG, "Wake-verify result dropped for " + keywordInstanceId + ": " + t.getMessage());
+            }
+        };
+        keywords.addOnDetectionEventListener(keywordInstanceId, w, l);
+        worker = w;
+        detectionListener = l;
+    }
+
+    /** Stop verifying and disable the keyword instance's pushed-audio history. No-op if not started. */
+    public synchronized void stop() {
+        if (worker == null) return;
+        try {
+            if (keywords.hasInstance(keywordInstanceId)) {
+                keywords.removeOnDetectionEventListener(keywordInstanceId, detectionListener);
+                keywords.setDetectionAudioHistoryEnabled(keywordInstanceId, false);
+            }
+        } finally {
+            worker.shutdown();
+            worker = null;
+            detectionListener = null;
+        }
+    }
+
+    public synchronized boolean isRunning() {
+        return worker != null;
+    }
+
+    // Worker thread; the pooled event is valid for the duration of this call.
+    @NonNull
+    private WakeVerifyEvent verify(@NonNull DetectionEvent event) {
+        long start = System.nanoTime();
+        int want = windowMs * SAMPLE_RATE / 1000;
+        int n = keywords.copyDetectionAudio(keywordInstanceId, event.getCaptureTimeNanos(), window, want);
+        float score = Float.NaN;
+        if (n > 0) {
+            try {
+                score = speakers.createAndVerifyEmbeddingsFromCluster(speakerInstanceId, clusterId, window, n);
+            } catch (Throwable t) {
+                Log.w(TAG, "Verification failed for " + speakerInstanceId + ": " + t.getMessage());
+            }
+        } else {
+            Log.w(TAG, "No triggering audio held for " + keywordInstanceId + "; not verified");
+        }
+        long end = System.nanoTime();
+        return new WakeVerifyEvent(keywordInstanceId, event.getPhrase(), event.getModelIndex(),
+                speakerInstanceId, clusterId, score, score >= acceptScore, n,
+                event.getCaptureTimeNanos(), event.getDetectionTimeNanos(), start, end,
+                event.getDetectionWallTimeMillis());
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "WakeVerifyPipeline{" + keywordInstanceId + " -> " + speakerInstanceId + "#" + clusterId + "}";
+    }
+}
@@ -0,0 +1,31 @@
+package com.davoice.benchmark;
+
+/**
+ * One benchmark, run for every (instances, threads) combination it supports.
+ *
+ * Lifecycle per combination: {@link #setup}, then one {@link Worker} per thread for each
+ * warm-up and measurement iteration, then {@link #teardown}.
+ */
+interface Benchmark {
+
+    /** Per-thread operation loop body. */
+    interface Worker {
+        void op() throws Exception;
+    }
+
+    /** Stable name used as the result key, e.g. {@code kwd.pushNextFrame.sink}. */
+    String name();
+
+    /** False for combinations that do not make sense (e.g. more producers than instances). */
+    boolean supports(int instances, int threads);
+
+    void setup(int instances, int threads) throws Exception;
+
+    /** Creates the worker for thread {@code threadIndex} (0-based, less than threads). */
+    Worker worker(int threadIndex);
+
+    /** Cumulative count of work the wrapper dropped (frames, events), or 0 if not applicable. */
+    long dropped();
+
+    void teardown() throws Exception;
+}
@@ -0,0 +1,138 @@
+package com.davoice.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Entry point of the wrapper benchmarks (run with {@code gradle bench}).
+ *
+ * Options:
+ *   --instances 1,16,256     instance counts
+ *   --threads 1,2,4,8        thread counts
+ *   --warmup 3               warm-up iterations per combination
+ *   --iterations 5           measured iterations per combination
+ *   --time-ms 500            length of one iteration
+ *   --filter REGEX           only benchmarks whose name matches
+ *   --out DIR                where results.csv / results.json are written
+ *   --baseline FILE          a previous results.csv to compare against
+ *   --tolerance 0.10         relative throughput drop reported as a regression
+ *
+ * results.csv has one sorted line per combination, so two runs can be compared with any
+ * diff tool. With --baseline the run exits with status 2 if any combination regressed.
+ */
+public final class BenchmarkMain {
+
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = parse(args);
+        int[] instanceCounts = ints(opts.getOrDefault("instances", "1,16,256"));
+        int[] threadCounts = ints(opts.getOrDefault("threads", "1,2,4,8"));
+        Pattern filter = Pattern.compile(opts.getOrDefault("filter", ".*"));
+        File out = new File(opts.getOrDefault("out", "build/bench"));
+        Runner runner = new Runner(
+                Integer.parseInt(opts.getOrDefault("warmup", "3")),
+                Integer.parseInt(opts.getOrDefault("iterations", "5")),
+                Long.parseLong(opts.getOrDefault("time-ms", "500")));
+
+        List<Result> results = new ArrayList<>();
+        for (Benchmark b : WrapperBenchmarks.all()) {
+            if (!filter.matcher(b.name()).find()) continue;
+            for (int instances : instanceCounts) {
+                for (int threads : threadCounts) {
+                    if (!b.supports(instances, threads)) continue;
+                    Result r = runner.run(b, instances, threads);
+                    System.out.println(String.format(Locale.ROOT, "%-34s instances=%-5d threads=%-3d %,16.0f ops/s +/- %,.0f",
+                            r.benchmark, r.instances, r.threads, r.opsPerSec, r.errorOpsPerSec));
+                    results.add(r);
+                }
+            }
+        }
+        Collections.sort(results);
+        write(out, results);
+
+        String baseline = opts.get("baseline");
+        if (baseline != null) {
+            double tolerance = Double.parseDouble(opts.getOrDefault("tolerance", "0.10"));
+            if (compare(new File(baseline), results, tolerance) > 0) System.exit(2);
+        }
+        // Consumer and callback threads are daemons; exit promptly.
+        System.exit(0);
+    }
+
+    private static void write(File dir, List<Result> results) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) throw new IOException("Cannot create " + dir);
+        try (PrintWriter csv = new PrintWriter(new File(dir, "results.csv"), "UTF-8")) {
+            csv.println(Result.CSV_HEADER);
+            for (Result r : results) {
+                csv.println(r.toCsv());
+            }
+        }
+        try (PrintWriter json = new PrintWriter(new File(dir, "results.json"), "UTF-8")) {
+            json.println("{");
+            json.println("  \"jvm\": \"" + System.getProperty("java.vm.name") + " " + System.getProperty("java.version") + "\",");
+            json.println("  \"cpus\": " + Runtime.getRuntime().availableProcessors() + ",");
+            json.println("  \"results\": [");
+            for (int i = 0; i < results.size(); i++) {
+                json.println("    " + results.get(i).toJson() + (i + 1 < results.size() ? "," : ""));
+            }
+            json.println("  ]");
+            json.println("}");
+        }
+        System.out.println("Results written to " + dir.getAbsolutePath());
+    }
+
+    /** Prints per-combination deltas against a baseline CSV; returns the number of regressions. */
+    private static int compare(File baselineCsv, List<Result> current, double tolerance) throws IOException {
+        Map<String, Result> base = new HashMap<>();
+        List<String> lines = Files.readAllLines(baselineCsv.toPath(), StandardCharsets.UTF_8);
+        for (String line : lines.subList(1, lines.size())) {
+            if (line.isEmpty()) continue;
+            Result r = Result.fromCsv(line);
+            base.put(r.key(), r);
+        }
+        int regressions = 0;
+        System.out.println("Comparison with " + baselineCsv + " (tolerance " + (int) (tolerance * 100) + "%):");
+        for (Result r : current) {
+            Result b = base.get(r.key());
+            if (b == null || b.opsPerSec <= 0) continue;
+            double delta = r.opsPerSec / b.opsPerSec - 1.0;
+            boolean regressed = delta < -tolerance;
+            if (regressed) regressions++;
+            System.out.println(String.format(Locale.ROOT, "%s %-34s instances=%-5d threads=%-3d %+7.1f%%",
+                    regressed ? "REGRESSION" : "          ", r.benchmark, r.instances, r.threads, delta * 100));
+        }
+        return regressions;
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> opts = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--") || i + 1 >= args.length) {
+                throw new IllegalArgumentException("Expected --name value, got: " + args[i]);
+            }
+            opts.put(args[i].substring(2), args[++i]);
+        }
+        return opts;
+    }
+
+    private static int[] ints(String csv) {
+        String[] parts = csv.split(",");
+        int[] out = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            out[i] = Integer.parseInt(parts[i].trim());
+        }
+        return out;
+    }
+}
@@ -0,0 +1,70 @@
+package com.davoice.benchmark;
+
+import java.util.Locale;
+
+/** Throughput of one benchmark combination: mean and standard deviation over iterations. */
+final class Result implements Comparable<Result> {
+
+    final String benchmark;
+    final int instances;
+    final int threads;
+    final double opsPerSec;
+    final double errorOpsPerSec;
+    final double droppedPerSec;
+
+    Result(String benchmark, int instances, int threads, double opsPerSec, double errorOpsPerSec, double droppedPerSec) {
+        this.benchmark = benchmark;
+        this.instances = instances;
+        this.threads = threads;
+        this.opsPerSec = opsPerSec;
+        this.errorOpsPerSec = errorOpsPerSec;
+        this.droppedPerSec = droppedPerSec;
+    }
+
+    static Result of(String benchmark, int instances, int threads, double[] samples, double droppedPerSec) {
+        double mean = 0;
+        for (double s : samples) {
+            mean += s;
+        }
+        mean /= samples.length;
+        double var = 0;
+        for (double s : samples) {
+            var += (s - mean) * (s - mean);
+        }
+        double sd = samples.length > 1 ? Math.sqrt(var / (samples.length - 1)) : 0;
+        return new Result(benchmark, instances, threads, mean, sd, droppedPerSec);
+    }
+
+    /** Identity of the combination, used to match results across runs. */
+    String key() {
+        return benchmark + "|" + instances + "|" + threads;
+    }
+
+    static final String CSV_HEADER = "benchmark,instances,threads,ops_per_sec,error_ops_per_sec,dropped_per_sec";
+
+    String toCsv() {
+        return String.format(Locale.ROOT, "%s,%d,%d,%.1f,%.1f,%.1f",
+                benchmark, instances, threads, opsPerSec, errorOpsPerSec, droppedPerSec);
+    }
+
+    static Result fromCsv(String line) {
+        String[] f = line.split(",");
+        return new Result(f[0], Integer.parseInt(f[1]), Integer.parseInt(f[2]),
+                Double.parseDouble(f[3]), Double.parseDouble(f[4]), Double.parseDouble(f[5]));
+    }
+
+    String toJson() {
+        return String.format(Locale.ROOT,
+                "{\"benchmark\": \"%s\", \"instances\": %d, \"threads\": %d, "
+                        + "\"opsPerSec\": %.1f, \"errorOpsPerSec\": %.1f, \"droppedPerSec\": %.1f}",
+                benchmark, instances, threads, opsPerSec, errorOpsPerSec, droppedPerSec);
+    }
+
+    @Override
+    public int compareTo(Result o) {
+        int c = benchmark.compareTo(o.benchmark);
+        if (c != 0) return c;
+        c = Integer.compare(instances, o.instances);
+        return c != 0 ? c : Integer.compare(threads, o.threads);
+    }
+}
@@ -0,0 +1,102 @@
+package com.davoice.benchmark;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runner
+ *
+ * Fixed-time throughput measurement in the style of JMH's Throughput mode: each iteration
+ * starts all worker threads together, lets them loop for a fixed time and counts completed
+ * operations. Warm-up iterations are run and discarded first so the JIT has compiled the
+ * wrapper paths before anything is recorded.
+ */
+final class Runner {
+
+    private final int warmupIterations;
+    private final int iterations;
+    private final long iterationNanos;
+
+    Runner(int warmupIterations, int iterations, long iterationMillis) {
+        this.warmupIterations = warmupIterations;
+        this.iterations = iterations;
+        this.iterationNanos = TimeUnit.MILLISECONDS.toNanos(iterationMillis);
+    }
+
+    Result run(Benchmark bench, int instances, int threads) throws Exception {
+        bench.setup(instances, threads);
+        try {
+            for (int i = 0; i < warmupIterations; i++) {
+                iterate(bench, threads);
+            }
+            double[] opsPerSec = new double[iterations];
+            long dropsBefore = bench.dropped();
+            long nanos = 0L;
+            for (int i = 0; i < iterations; i++) {
+                long[] r = iterate(bench, threads);
+                opsPerSec[i] = r[0] * 1e9 / r[1];
+                nanos += r[1];
+            }
+            double dropsPerSec = (bench.dropped() - dropsBefore) * 1e9 / nanos;
+            return Result.of(bench.name(), instances, threads, opsPerSec, dropsPerSec);
+        } finally {
+            bench.teardown();
+        }
+    }
+
+    /** Returns {total ops, elapsed nanos}. */
+    private long[] iterate(Benchmark bench, int threads) throws Exception {
+        final Benchmark.Worker[] workers = new Benchmark.Worker[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = bench.worker(t);
+        }
+        final long[] ops = new long[threads];
+        final Throwable[] failure = new Throwable[1];
+        final CountDownLatch ready = new CountDownLatch(threads);
+        final CountDownLatch go = new CountDownLatch(1);
+        final StopFlag stop = new StopFlag();
+        Thread[] pool = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            final int index = t;
+            pool[t] = new Thread(() -> {
+                Benchmark.Worker w = workers[index];
+                long n = 0;
+                ready.countDown();
+                try {
+                    go.await();
+                    while (!stop.stopped) {
+                        w.op();
+                        n++;
+                    }
+                } catch (Throwable e) {
+                    synchronized (failure) {
+                        failure[0] = e;
+                    }
+                }
+                ops[index] = n;
+            }, "bench-" + t);
+            pool[t].start();
+        }
+        ready.await();
+        long start = System.nanoTime();
+        go.countDown();
+        TimeUnit.NANOSECONDS.sleep(iterationNanos);
+        stop.stopped = true;
+        for (Thread t : pool) {
+            t.join();
+        }
+        long elapsed = System.nanoTime() - start;
+        synchronized (failure) {
+            if (failure[0] != null) throw new IllegalStateException(bench.name() + " failed", failure[0]);
+        }
+        long total = 0;
+        for (long n : ops) {
+            total += n;
+        }
+        return new long[]{total, elapsed};
+    }
+
+    private static final class StopFlag {
+        volatile boolean stopped;
+    }
+}
@@ -0,0 +1,489 @@
+package com.davoice.benchmark;
+
+import android.content.Context;
+
+import ai.picovoice.android.voiceprocessor.VoiceProcessor;
+
+import com.davoice.keywordsdetection.keywordslibrary.KeyWordsDetection;
+import com.davoice.keywordspotting.FrameSink;
+import com.davoice.keywordspotting.KeywordDetectionAPI;
+import com.davoice.keywordspotting.KeywordFileScanner;
+import com.davoice.keywordspotting.WavStreamWriter;
+import com.davoice.speakeridapi.SpeakerIdNativeAPI;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/** The wrapper hot paths measured by {@link BenchmarkMain}. */
+final class WrapperBenchmarks {
+
+    /** Samples per pushed frame (80 ms at 16 kHz). */
+    static final int FRAME_SAMPLES = 1280;
+
+    private static final Executor DIRECT = Runnable::run;
+
+    private WrapperBenchmarks() {
+    }
+
+    static List<Benchmark> all() {
+        return Arrays.asList(
+                new PushById(),
+                new PushSink(),
+                new DetectionFanOut(),
+                new ContendedLookup(),
+                new CaptureFanOut(),
+                new MultiModel(KeywordDetectionAPI.ExecutionMode.SEQUENTIAL),
+                new MultiModel(KeywordDetectionAPI.ExecutionMode.PARALLEL),
+                new FileScan(),
+                new SpeakerIdPush(false),
+                new SpeakerIdPush(true));
+    }
+
+    static String kwdId(int i) {
+        return "kwd-" + i;
+    }
+
+    /** Base for benchmarks over N keyword instances, each with its own model. */
+    private abstract static class KeywordInstances implements Benchmark {
+        KeywordDetectionAPI api;
+        int instances;
+        int threads;
+
+        @Override
+        public void setup(int instances, int threads) throws Exception {
+            this.instances = instances;
+            this.threads = threads;
+            api = new KeywordDetectionAPI(new Context());
+            for (int i = 0; i < instances; i++) {
+                api.createInstance(kwdId(i), "bench_" + i + ".dm", 0.9f, 2);
+                start(kwdId(i));
+            }
+        }
+
+        void start(String id) throws Exception {
+            api.startKeywordDetectionExternal(id, 0.9f);
+        }
+
+        @Override
+        public long dropped() {
+            long n = 0;
+            for (int i = 0; i < instances; i++) {
+                n += api.getInstanceMetrics(kwdId(i)).droppedFrames;
+            }
+            return n;
+        }
+
+        @Override
+        public void teardown() {
+            api.destroyAll();
+        }
+
+        /** Instances owned by one producer thread (one producer per sink keeps its ring uncontended). */
+        int[] owned(int threadIndex) {
+            int[] ids = new int[(instances - threadIndex + threads - 1) / threads];
+            for (int k = 0, i = threadIndex; i < instances; i += threads, k++) {
+                ids[k] = i;
+            }
+            return ids;
+        }
+    }
+
+    /**
+     * {@code pushNextFrame(instanceId, pcm, len)}: lookup + enqueue, consumer threads draining.
+     * One op is one call; a full ring makes the call wait for the consumer (this entry point is
+     * lossless), so the rate is bounded by the end-to-end drain rate, as for {@link PushSink}.
+     */
+    static final class PushById extends KeywordInstances {
+        @Override
+        public String name() {
+            return "kwd.pushNextFrame.byId";
+        }
+
+        @Override
+        public boolean supports(int instances, int threads) {
+            return threads <= instances;
+        }
+
+        @Override
+        public Worker worker(int threadIndex) {
+            final int[] owned = owned(threadIndex);
+            final String[] ids = new String[owned.length];
+            for (int k = 0; k < owned.length; k++) {
+                ids[k] = kwdId(owned[k]);
+            }
+            final short[] frame = new short[FRAME_SAMPLES];
+            return new Worker() {
+                int next;
+
+                @Override
+                public void op() {
+                    api.pushNextFrame(ids[next], frame, frame.length);
+                    if (++next == ids.length) next = 0;
+                }
+            };
+        }
+    }
+
+    /** {@code FrameSink.push}: the handle-based path with no lookup. Ops counted as for {@link PushById}. */
+    static final class PushSink extends KeywordInstances {
+        @Override
+        public String name() {
+            return "kwd.pushNextFrame.sink";
+        }
+
+        @Override
+        public boolean supports(int instances, int threads) {
+            return threads <= instances;
+        }
+
+        @Override
+        public Worker worker(int threadIndex) {
+            int[] owned = owned(threadIndex);
+            final FrameSink[] sinks = new FrameSink[owned.length];
+            for (int k = 0; k < owned.length; k++) {
+                sinks[k] = api.getFrameSink(kwdId(owned[k]));
+            }
+            final short[] frame = new short[FRAME_SAMPLES];
+            return new Worker() {
+                int next;
+
+                @Override
+                public void op() {
+                    while (!sinks[next].push(frame, frame.length)) {
+                        Thread.yield();
+                    }
+                    if (++next == sinks.length) next = 0;
+                }
+            };
+        }
+    }
+
+    /**
+     * One library callback fanned out to every instance sharing the model and to each
+     * instance's listener (direct executor, so delivery cost is included). Each thread fires
+     * its own group of {@code instances} instances; one op is one detection.
+     */
+    static final class DetectionFanOut implements Benchmark {
+        private KeywordDetectionAPI api;
+        private int total;
+        private long[] delivered;
+
+        @Override
+        public String name() {
+            return "kwd.detection.fanout";
+        }
+
+        @Override
+        public boolean supports(int instances, int threads) {
+            return instances * threads <= 4096;
+        }
+
+        @Override
+        public void setup(int instances, int threads) throws Exception {
+            api = new KeywordDetectionAPI(new Context());
+            api.setModelSharingEnabled(true);
+            api.setSharedCaptureEnabled(true);
+            total = instances * threads;
+            delivered = new long[total];
+            for (int g = 0; g < threads; g++) {
+                for (int i = 0; i < instances; i++) {
+                    final int slot = g * instances + i;
+                    String id = kwdId(slot);
+                    api.createInstance(id, model(g), 0.9f, 2);
+                    api.addOnKeywordDetectionListener(id, DIRECT, (instanceId, phrase) -> delivered[slot]++);
+                    api.startKeywordDetection(id, 0.9f); // shared capture: one engine per group
+                }
+            }
+        }
+
+        private static String model(int group) {
+            return "fan_" + group + ".dm";
+        }
+
+        @Override
+        public Worker worker(int threadIndex) {
+            final String model = model(threadIndex);
+            return () -> KeyWordsDetection.fire(model);
+        }
+
+        @Override
+        public long dropped() {
+            long n = 0;
+            for (int i = 0; i < total; i++) {
+                n += api.getDroppedDetectionEvents(kwdId(i));
+            }
+            return n;
+        }
+
+        @Override
+        public void teardown() {
+            api.destroyAll();
+        }
+    }
+
+    /** Many threads hitting instance lookup ({@code getDroppedDetectionEvents}) across N instances. */
+    static final class ContendedLookup extends KeywordInstances {
+        @Override
+        public String name() {
+            return "kwd.lookup.contended";
+        }
+
+        @Override
+        public boolean supports(int instances, int threads) {
+            return true;
+        }
+
+        @Override
+        public Worker worker(int threadIndex) {
+            final String[] ids = new String[instances];
+            for (int i = 0; i < instances; i++) {
+                ids[i] = kwdId(i);
+            }
+            return new Worker() {
+                int seed = 0x9E3779B9 * (threadIndex + 1);
+                long sink;
+
+                @Override
+                public void op() {
+                    seed ^= seed << 13;
+                    seed ^= seed >>> 17;
+                    seed ^= seed << 5;
+                    sink += api.getDroppedDetectionEvents(ids[(seed & 0x7fffffff) % ids.length]);
+                }
+            };
+        }
+
+        @Override
+        public long dropped() {
+            return 0L;
+        }
+    }
+
+    /**
+     * Shared microphone capture: one recorder frame published to the broadcast ring and picked
+     * up by every listening instance. One op is one frame from the (stub) recorder thread; frames
+     * a reader missed because it fell behind are reported as dropped.
+     */
+    static final class CaptureFanOut extends KeywordInstances {
+        @Override
+        public String name() {
+            return "kwd.capture.fanout";
+        }
+
+        @Override
+        public boolean supports(int instances, int threads) {
+            return threads == 1; // one recorder thread
+        }
+
+        @Override
+        void start(String id) throws Exception {
+            api.setSharedCaptureEnabled(true);
+            api.startKeywordDetection(id, 0.9f);
+        }
+
+        @Override
+        public Worker worker(int threadIndex) {
+            final VoiceProcessor recorder = VoiceProcessor.getInstance();
+            final short[] frame = new short[FRAME_SAMPLES];
+            return () -> recorder.deliver(frame);
+        }
+    }
+
+    /**
+     * One multi-model instance with {@code instances} models, fed through its FrameSink, in
+     * sequential or parallel execution mode. One op is one accepted frame (retried while the ring
+     * is full), so with {@code -PstubFrameNanos} the score is the frame rate the models sustain.
+     */
+    static final class MultiModel implements Benchmark {
+        private final KeywordDetectionAPI.ExecutionMode mode;
+        private KeywordDetectionAPI api;
+
+        MultiModel(KeywordDetectionAPI.ExecutionMode mode) {
+            this.mode = mode;
+        }
+
+        @Override
+        public String name() {
+            return "kwd.multi." + mode.name().toLowerCase(java.util.Locale.ROOT);
+        }
+
+        @Override
+        public boolean supports(int instances, int threads) {
+            return threads == 1 && instances >= 2 && instances <= 16;
+        }
+
+        @Override
+        public void setup(int models, int threads) throws Exception {
+            api = new KeywordDetectionAPI(new Context());
+            String[] paths = new String[models];
+            float[] thresholds = new float[models];
+            int[] bufferCnts = new int[models];
+            long[] msBetween = new long[models];
+            for (int i = 0; i < models; i++) {
+                paths[i] = "multi_" + i + ".dm";
+                thresholds[i] = 0.9f;
+                bufferCnts[i] = 2;
+            }
+            api.createInstanceMulti(kwdId(0), paths, thresholds, bufferCnts, msBetween);
+            api.setExecutionMode(kwdId(0), mode);
+            api.startKeywordDetectionExternal(kwdId(0), 0.9f);
+        }
+
+        @Override
+        public Worker worker(int threadIndex) {
+            final FrameSink sink = api.getFrameSink(kwdId(0));
+            final short[] frame = new short[FRAME_SAMPLES];
+            return () -> {
+                while (!sink.push(frame, frame.length)) {
+                    Thread.yield();
+                }
+            };
+        }
+
+        @Override
+        public long dropped() {
+            return api.getInstanceMetrics(kwdId(0)).droppedFrames;
+        }
+
+        @Override
+        public void teardown() {
+            api.destroyAll();
+        }
+    }
+
+    /**
+     * {@link KeywordFileScanner} over {@code instances} 10 s WAV files on a pool of one worker per
+     * CPU. One op is one whole scan, so ops/s times {@code instances * 10} is the audio seconds
+     * scanned per second.
+     */
+    static final class FileScan implements Benchmark {
+        private static final int FILE_SECONDS = 10;
+        private final List<File> files = new ArrayList<>();
+        private KeywordFileScanner scanner;
+        private File dir;
+
+        @Override
+        public String name() {
+            return "kwd.scan.files";
+        }
+
+        @Override
+        public boolean supports(int instances, int threads) {
+            return threads == 1 && instances <= 64;
+        }
+
+        @Override
+        public void setup(int instances, int threads) throws Exception {
+            dir = File.createTempFile("kwd-scan", "");
+            if (!dir.delete() || !dir.mkdirs()) throw new IllegalStateException("Cannot create " + dir);
+            short[] frame = new short[FRAME_SAMPLES];
+            for (int i = 0; i < instances; i++) {
+                File f = new File(dir, "scan_" + i + ".wav");
+                try (WavStreamWriter w = new WavStreamWriter(f, 16000)) {
+                    for (int k = 0; k < FILE_SECONDS * 16000 / FRAME_SAMPLES; k++) {
+                        while (!w.write(frame, 0, frame.length)) {
+                            Thread.yield();
+                        }
+                    }
+                }
+                files.add(f);
+            }
+            scanner = new KeywordFileScanner(null, new String[]{"scan.dm"}, new float[]{0.9f}, new int[]{2});
+        }
+
+        @Override
+        public Worker worker(int threadIndex) {
+            final int parallelism = Runtime.getRuntime().availableProcessors();
+            return () -> {
+                for (KeywordFileScanner.FileResult r : scanner.scan(files, parallelism).get()) {
+                    if (!r.isOk()) throw new IllegalStateException(r.toString());
+                }
+            };
+        }
+
+        @Override
+        public long dropped() {
+            return 0;
+        }
+
+        @Override
+        public void teardown() {
+            for (File f : files) {
+                if (!f.delete()) f.deleteOnExit();
+            }
+            files.clear();
+            if (!dir.delete()) dir.deleteOnExit();
+        }
+    }
+
+    /**
+     * {@code SpeakerIdNativeAPI.verifyStreamPush} from short[] or a direct little-endian
+     * ByteBuffer. Thread t cycles over instances starting at t, so threads contend on the
+     * per-instance lock once there are more threads than instances.
+     */
+    static final class SpeakerIdPush implements Benchmark {
+        private final boolean byteBuffer;
+        private SpeakerIdNativeAPI api;
+        private String[] ids;
+
+        SpeakerIdPush(boolean byteBuffer) {
+            this.byteBuffer = byteBuffer;
+        }
+
+        @Override
+        public String name() {
+            return byteBuffer ? "sid.verifyStreamPush.byteBuffer" : "sid.verifyStreamPush.array";
+        }
+
+        @Override
+        public boolean supports(int instances, int threads) {
+            return true;
+        }
+
+        @Override
+        public void setup(int instances, int threads) throws Exception {
+            api = new SpeakerIdNativeAPI(new Context());
+            List<String> created = new ArrayList<>();
+            for (int i = 0; i < instances; i++) {
+                String id = "sid-" + i;
+                api.createInstance(id);
+                created.add(id);
+            }
+            ids = created.toArray(new String[0]);
+        }
+
+        @Override
+        public Worker worker(final int threadIndex) {
+            final short[] block = new short[FRAME_SAMPLES];
+            final ByteBuffer direct = ByteBuffer.allocateDirect(FRAME_SAMPLES * 2).order(ByteOrder.LITTLE_ENDIAN);
+            return new Worker() {
+                int next = threadIndex % ids.length;
+
+                @Override
+                public void op() throws Exception {
+                    if (byteBuffer) {
+                        api.verifyStreamPush(ids[next], direct, 0, FRAME_SAMPLES);
+                    } else {
+                        api.verifyStreamPush(ids[next], block);
+                    }
+                    if (++next == ids.length) next = 0;
+                }
+            };
+        }
+
+        @Override
+        public long dropped() {
+            return 0L;
+        }
+
+        @Override
+        public void teardown() {
+            api.destroyAll();
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package ai.onnxruntime;
+
+/** Benchmark stub of the ONNX Runtime exception type. */
+public class OrtException extends Exception {
+    public OrtException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,54 @@
+package ai.picovoice.android.voiceprocessor;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/** Benchmark stub: no audio device; frames are only delivered through {@link #deliver(short[])}. */
+public class VoiceProcessor {
+
+    private static final VoiceProcessor INSTANCE = new VoiceProcessor();
+
+    private final List<VoiceProcessorFrameListener> frameListeners = new CopyOnWriteArrayList<>();
+    private final List<VoiceProcessorErrorListener> errorListeners = new CopyOnWriteArrayList<>();
+    private volatile boolean recording;
+
+    public static synchronized VoiceProcessor getInstance() {
+        return INSTANCE;
+    }
+
+    public synchronized void addFrameListener(VoiceProcessorFrameListener listener) {
+        frameListeners.add(listener);
+    }
+
+    public synchronized void removeFrameListener(VoiceProcessorFrameListener listener) {
+        frameListeners.remove(listener);
+    }
+
+    public synchronized void addErrorListener(VoiceProcessorErrorListener listener) {
+        errorListeners.add(listener);
+    }
+
+    public synchronized void removeErrorListener(VoiceProcessorErrorListener listener) {
+        errorListeners.remove(listener);
+    }
+
+    public synchronized void start(int frameLength, int sampleRate) throws VoiceProcessorException {
+        recording = true;
+    }
+
+    public synchronized void stop() throws VoiceProcessorException {
+        recording = false;
+    }
+
+    public boolean getIsRecording() {
+        return recording;
+    }
+
+    /** Stub only: hand one frame to the listeners as the recorder thread would. */
+    public void deliver(short[] frame) {
+        if (!recording) return;
+        for (VoiceProcessorFrameListener l : frameListeners) {
+            l.onFrame(frame);
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package ai.picovoice.android.voiceprocessor;
+
+/** Benchmark stub. */
+public interface VoiceProcessorErrorListener {
+    void onError(VoiceProcessorException error);
+}
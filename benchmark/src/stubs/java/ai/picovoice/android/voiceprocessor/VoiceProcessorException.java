@@ -0,0 +1,8 @@
+package ai.picovoice.android.voiceprocessor;
+
+/** Benchmark stub. */
+public class VoiceProcessorException extends Exception {
+    public VoiceProcessorException(String message) {
+        super(message);
+    }
+}
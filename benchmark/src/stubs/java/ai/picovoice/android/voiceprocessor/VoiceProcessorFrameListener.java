@@ -0,0 +1,6 @@
+package ai.picovoice.android.voiceprocessor;
+
+/** Benchmark stub. */
+public interface VoiceProcessorFrameListener {
+    void onFrame(short[] frame);
+}
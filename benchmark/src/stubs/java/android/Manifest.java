@@ -0,0 +1,8 @@
+package android;
+
+/** Benchmark stub. */
+public final class Manifest {
+    public static final class permission {
+        public static final String RECORD_AUDIO = "android.permission.RECORD_AUDIO";
+    }
+}
@@ -0,0 +1,34 @@
+package android.content;
+
+import android.content.res.AssetManager;
+
+import java.io.File;
+
+/** Benchmark stub: every directory is the JVM temp directory; there are no assets. */
+public class Context {
+    private final File dir = new File(System.getProperty("java.io.tmpdir"), "kwd-benchmark");
+
+    public Context getApplicationContext() {
+        return this;
+    }
+
+    public AssetManager getAssets() {
+        return new AssetManager();
+    }
+
+    public File getCacheDir() {
+        return dir;
+    }
+
+    public File getCodeCacheDir() {
+        return dir;
+    }
+
+    public File getFilesDir() {
+        return dir;
+    }
+
+    public File getNoBackupFilesDir() {
+        return dir;
+    }
+}
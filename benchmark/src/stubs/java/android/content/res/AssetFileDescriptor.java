@@ -0,0 +1,14 @@
+package android.content.res;
+
+import java.io.Closeable;
+
+/** Benchmark stub. */
+public class AssetFileDescriptor implements Closeable {
+    public long getLength() {
+        return 0L;
+    }
+
+    @Override
+    public void close() {
+    }
+}
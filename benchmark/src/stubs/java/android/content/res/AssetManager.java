@@ -0,0 +1,16 @@
+package android.content.res;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/** Benchmark stub: no assets exist. */
+public class AssetManager {
+    public AssetFileDescriptor openFd(String name) throws IOException {
+        throw new FileNotFoundException(name);
+    }
+
+    public InputStream open(String name) throws IOException {
+        throw new FileNotFoundException(name);
+    }
+}
@@ -0,0 +1,5 @@
+package android.net;
+
+/** Benchmark stub. */
+public class Uri {
+}
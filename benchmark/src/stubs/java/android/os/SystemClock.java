@@ -0,0 +1,16 @@
+package android.os;
+
+/** Benchmark stub backed by System.nanoTime(). */
+public final class SystemClock {
+    public static long elapsedRealtime() {
+        return System.nanoTime() / 1_000_000L;
+    }
+
+    public static long elapsedRealtimeNanos() {
+        return System.nanoTime();
+    }
+
+    public static long uptimeMillis() {
+        return System.nanoTime() / 1_000_000L;
+    }
+}
@@ -0,0 +1,30 @@
+package android.util;
+
+/** Benchmark stub: debug/info output is discarded, warnings and errors go to stderr. */
+public final class Log {
+    public static int d(String tag, String msg) {
+        return 0;
+    }
+
+    public static int i(String tag, String msg) {
+        return 0;
+    }
+
+    public static int w(String tag, String msg) {
+        System.err.println("W/" + tag + ": " + msg);
+        return 0;
+    }
+
+    public static int w(String tag, String msg, Throwable t) {
+        return w(tag, msg + ": " + t);
+    }
+
+    public static int e(String tag, String msg) {
+        System.err.println("E/" + tag + ": " + msg);
+        return 0;
+    }
+
+    public static int e(String tag, String msg, Throwable t) {
+        return e(tag, msg + ": " + t);
+    }
+}
@@ -0,0 +1,5 @@
+package androidx.annotation;
+
+/** Benchmark stub. */
+public @interface NonNull {
+}
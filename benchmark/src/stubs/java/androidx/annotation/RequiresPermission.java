@@ -0,0 +1,6 @@
+package androidx.annotation;
+
+/** Benchmark stub. */
+public @interface RequiresPermission {
+    String value() default "";
+}
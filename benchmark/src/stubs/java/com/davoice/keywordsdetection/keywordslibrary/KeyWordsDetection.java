@@ -0,0 +1,98 @@
+package com.davoice.keywordsdetection.keywordslibrary;
+
+import android.content.Context;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import ai.onnxruntime.OrtException;
+
+/**
+ * Benchmark stub of the keyword detection library.
+ *
+ * No inference is run, so benchmarks measure the wrapper alone. Optionally each pushed frame
+ * can busy-wait {@code -Dkwd.stub.frameNanos=N} per model to model detector cost. A detection can be
+ * raised for any loaded model with {@link #fire(String)}, which invokes the callback on the
+ * calling thread the way the real library invokes it on its inference thread.
+ */
+public class KeyWordsDetection {
+
+    public interface KeywordDetectionCallback {
+        void onKeywordDetected(Boolean detected, String modelName);
+    }
+
+    private static final long FRAME_NANOS = Long.getLong("kwd.stub.frameNanos", 0L);
+    private static final ConcurrentHashMap<String, KeyWordsDetection> BY_MODEL = new ConcurrentHashMap<>();
+
+    private final String[] models;
+    private volatile KeywordDetectionCallback callback;
+
+    public KeyWordsDetection(Context context, String model, float threshold, int bufferCnt, boolean fastSession)
+            throws Exception {
+        this(new String[]{model});
+    }
+
+    public KeyWordsDetection(Context context, String[] models, float[] thresholds, int[] bufferCnts,
+                             long[] msBetweenCallbacks, boolean fastSession) throws Exception {
+        this(models.clone());
+    }
+
+    private KeyWordsDetection(String[] models) {
+        this.models = models;
+        for (String m : models) {
+            BY_MODEL.put(m, this);
+        }
+    }
+
+    /** Stub only: raise a detection of {@code model} on the most recently loaded detector for it. */
+    public static boolean fire(String model) {
+        KeyWordsDetection d = BY_MODEL.get(model);
+        if (d == null || d.callback == null) return false;
+        d.callback.onKeywordDetected(Boolean.TRUE, model);
+        return true;
+    }
+
+    public void initialize(KeywordDetectionCallback callback) throws Exception {
+        this.callback = callback;
+    }
+
+    public void replaceKeywordDetectionModel(Context context, String model, float threshold, int bufferCnt)
+            throws Exception {
+    }
+
+    public boolean setLicenseKey(String key) {
+        return true;
+    }
+
+    public void startForegroundService() {
+    }
+
+    public void stopForegroundService() {
+    }
+
+    public void startListeningExternalAudio(float threshold) throws OrtException {
+    }
+
+    public void pushNextFrame(short[] pcm, int length) {
+        if (FRAME_NANOS > 0) {
+            long end = System.nanoTime() + FRAME_NANOS * models.length;
+            while (System.nanoTime() < end) {
+                // model detector cost
+            }
+        }
+    }
+
+    public void startListening(float threshold) throws OrtException {
+    }
+
+    public void stopListening() {
+    }
+
+    public String getRecordingWav() throws Exception {
+        return "";
+    }
+
+    @Override
+    public String toString() {
+        return "KeyWordsDetection" + java.util.Arrays.toString(models);
+    }
+}
@@ -0,0 +1,128 @@
+package com.davoice.speakerid;
+
+import android.content.Context;
+import android.net.Uri;
+
+import java.io.File;
+
+/**
+ * Benchmark stub of the speaker-ID library. Streaming calls read every sample they are given
+ * (so the wrapper's copies are not optimized away) and otherwise do no work.
+ */
+public class SpeakerIdApi implements AutoCloseable {
+
+    private long checksum;
+
+    public static SpeakerIdApi create(Context context) throws Exception {
+        return new SpeakerIdApi();
+    }
+
+    public static SpeakerIdApi createWWD(Context context) throws Exception {
+        return new SpeakerIdApi();
+    }
+
+    @Override
+    public void close() {
+    }
+
+    public boolean initVerificationUsingDefaults(Context context) {
+        return true;
+    }
+
+    public boolean initVerificationWithFiles(File meanEmb, File clusterEmb) {
+        return true;
+    }
+
+    public void wipeAllTargetsAndReset() {
+    }
+
+    public OnboardingResult onboardFromMicrophone(long maxMillis) throws Exception {
+        return null;
+    }
+
+    public OnboardingResult onboardFromMicrophoneUntil(float targetSeconds, long maxMillis) throws Exception {
+        return null;
+    }
+
+    public class OnboardingStream {
+        public OnboardingResult feed(short[] pcm) throws Exception {
+            consume(pcm, pcm.length);
+            return null;
+        }
+
+        public OnboardingResult finish() throws Exception {
+            return null;
+        }
+    }
+
+    public OnboardingStream startOnboardingStream() {
+        return new OnboardingStream();
+    }
+
+    public OnboardingResult onboardFromWav(File wav) throws Exception {
+        return null;
+    }
+
+    public VerificationResult verifyFromMicrophone(long maxMillis) throws Exception {
+        return null;
+    }
+
+    public VerificationResult verifyStreamPush(short[] block) throws Exception {
+        consume(block, block.length);
+        return null;
+    }
+
+    public VerificationResult verifyStreamFinish() throws Exception {
+        return null;
+    }
+
+    public VerificationResult verifyFromWav(File wav) throws Exception {
+        return null;
+    }
+
+    public OnboardingResult onboardFromMicrophoneWWD(int embNum, long maxWallMs) throws Exception {
+        return null;
+    }
+
+    public VerificationResult verifyFromMicrophoneWWD(long maxWallMs) throws Exception {
+        return null;
+    }
+
+    public Uri exportDefaultClusterToDownloads(Context context) throws Exception {
+        return null;
+    }
+
+    public Uri exportDefaultMeanToDownloads(Context context) throws Exception {
+        return null;
+    }
+
+    public Uri exportDefaultMeanCountToDownloads(Context context) throws Exception {
+        return null;
+    }
+
+    public int initCluster(int numOfEmb) {
+        return 0;
+    }
+
+    public void createAndPushEmbeddingsToCluster(int clusterId, short[] pcm, int length) {
+        consume(pcm, length);
+    }
+
+    public float createAndVerifyEmbeddingsFromCluster(int clusterId, short[] pcm, int length) {
+        consume(pcm, length);
+        return 0f;
+    }
+
+    /** Stub only: running sum of every sample pushed. */
+    public synchronized long checksum() {
+        return checksum;
+    }
+
+    private synchronized void consume(short[] pcm, int length) {
+        long s = checksum;
+        for (int i = 0; i < length; i++) {
+            s += pcm[i];
+        }
+        checksum = s;
+    }
+}
@@ -0,0 +1,5 @@
+package com.davoice.speakerid;
+
+/** Benchmark stub. */
+public class VerificationResult {
+}